@@ -0,0 +1,127 @@
+package POIUtils.benchmark;
+
+import POIUtils.demo.ReportVoPOI;
+import POIUtils.entity.ReadProperty;
+import POIUtils.worker.RowBinder;
+import POIUtils.worker.WorkBookReader;
+import org.apache.poi.hssf.usermodel.HSSFDateUtil;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import reflect.ReflectUtils;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Excel行映射基准测试
+ * 对内存中的xlsx sheet逐行映射为{@link ReportVoPOI}，每次操作为一行，结果为每毫秒行数：
+ * readCells只读取单元格值，reflect为原实现(遍历Map，经TypeSwitchChain转换后反射调用setter)，
+ * rowBinder为{@link RowBinder}；运行方式见pom.xml中的benchmark profile
+ *
+ * @author cheney
+ * @date 2020-01-30
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RowBinderBenchmark {
+
+    private final static String[] TITLES = {"编号", "数量", "单价", "金额", "日期", "有效"};
+
+    private final static int ROWS = 10000;
+
+    private XSSFWorkbook workbook;
+
+    private Sheet sheet;
+
+    private Map<Integer, ReadProperty> readPropertyMap;
+
+    private RowBinder<ReportVoPOI> rowBinder;
+
+    @Setup
+    public void setup() {
+        workbook = new XSSFWorkbook();
+        sheet = workbook.createSheet();
+        Row title = sheet.createRow(0);
+        Map<Integer, String> titleMap = new HashMap<>();
+        for (int i = 0; i < TITLES.length; i++) {
+            title.createCell(i).setCellValue(TITLES[i]);
+            titleMap.put(i, TITLES[i]);
+        }
+        CellStyle dateStyle = workbook.createCellStyle();
+        dateStyle.setDataFormat(workbook.createDataFormat().getFormat("yyyy-MM-dd"));
+        for (int i = 1; i <= ROWS; i++) {
+            Row row = sheet.createRow(i);
+            row.createCell(0).setCellValue(i * 0.5);
+            row.createCell(1).setCellValue(i + 0.5);
+            row.createCell(2).setCellValue(String.valueOf(i * 0.25));
+            row.createCell(3).setCellValue(i * 0.01);
+            Cell date = row.createCell(4);
+            date.setCellValue(new Date(i * 60000L));
+            date.setCellStyle(dateStyle);
+            row.createCell(5).setCellValue(i % 2 == 0 ? "是" : "否");
+        }
+        readPropertyMap = new WorkBookReader().analysisAnnotation(ReportVoPOI.class, title);
+        rowBinder = RowBinder.of(ReportVoPOI.class, titleMap);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        workbook.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void readCells(Blackhole blackhole) {
+        for (int i = 1; i <= ROWS; i++) {
+            Row row = sheet.getRow(i);
+            for (int column = 0; column < TITLES.length; column++) {
+                blackhole.consume(getCellValue(row.getCell(column)));
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void reflect(Blackhole blackhole) throws Exception {
+        for (int i = 1; i <= ROWS; i++) {
+            Row row = sheet.getRow(i);
+            ReportVoPOI t = ReflectUtils.newObject(ReportVoPOI.class, null, null);
+            for (Map.Entry<Integer, ReadProperty> entry : readPropertyMap.entrySet()) {
+                entry.getValue().writerUnknownTypeValue(t, getCellValue(row.getCell(entry.getKey())));
+            }
+            blackhole.consume(t);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void rowBinder(Blackhole blackhole) {
+        for (int i = 1; i <= ROWS; i++) {
+            blackhole.consume(rowBinder.bind(sheet.getRow(i)));
+        }
+    }
+
+    private static Object getCellValue(Cell cell) {
+        switch (cell.getCellTypeEnum()) {
+            case STRING:
+                return cell.getStringCellValue();
+            case NUMERIC:
+                return HSSFDateUtil.isCellDateFormatted(cell) ? cell.getDateCellValue() : cell.getNumericCellValue();
+            default:
+                return null;
+        }
+    }
+
+}
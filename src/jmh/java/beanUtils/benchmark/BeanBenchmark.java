@@ -0,0 +1,71 @@
+package beanUtils.benchmark;
+
+import beanUtils.BeanUtils;
+import org.openjdk.jmh.annotations.*;
+import reflect.ReflectUtils;
+import reflect.pojo.Admin;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * bean转换基准测试
+ * 逐次反射(每次查找read方法并反射调用)与缓存转换计划的{@link beanUtils.BeanMapper}/{@link beanUtils.BeanCopier}对比，
+ * 运行方式见pom.xml中的benchmark profile
+ *
+ * @author cheney
+ * @date 2020-01-30
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BeanBenchmark {
+
+    private Admin admin;
+
+    @Setup
+    public void setup() {
+        admin = new Admin();
+        admin.setUsername("cheney");
+        admin.setAdminNumber("001");
+        admin.setTest2("test");
+    }
+
+    @Benchmark
+    public Map<String, Object> reflectToMap() {
+        Map<String, Object> map = new HashMap<>();
+        for (Map.Entry<String, Method> entry : ReflectUtils.getAllReadMethod(Admin.class, Object.class).entrySet()) {
+            map.put(entry.getKey(), ReflectUtils.readValue(admin, entry.getValue()));
+        }
+        return map;
+    }
+
+    @Benchmark
+    public Map<String, Object> mapperToMap() {
+        return BeanUtils.toMap(admin);
+    }
+
+    @Benchmark
+    public Admin reflectCopy() {
+        Admin copy = new Admin();
+        Map<String, Method> writeMethods = ReflectUtils.getAllWriterMethod(Admin.class, Object.class);
+        for (Map.Entry<String, Method> entry : ReflectUtils.getAllReadMethod(Admin.class, Object.class).entrySet()) {
+            Method writeMethod = writeMethods.get(entry.getKey());
+            if (writeMethod != null) {
+                ReflectUtils.writeValue(copy, writeMethod, ReflectUtils.readValue(admin, entry.getValue()));
+            }
+        }
+        return copy;
+    }
+
+    @Benchmark
+    public Admin copierCopy() {
+        return BeanUtils.copy(admin, new Admin());
+    }
+
+}
@@ -0,0 +1,64 @@
+package expression.cheney.benchmark;
+
+import expression.cheney.AviatorExpressionParser;
+import expression.cheney.ExpressionExecutor;
+import expression.cheney.NullExpressionExecutor;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Aviator解析(带缓存/不带缓存)与执行、空值表达式执行基准测试
+ *
+ * @author cheney
+ * @date 2020-01-25
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AviatorBenchmark {
+
+    private final static String EXPRESSION = "业务类型=='转账' && (string.contains(备注,'基金') || 服务费!=nil)";
+
+    private Map<String, Object> env;
+
+    private AviatorExpressionParser aviatorParser;
+
+    private ExpressionExecutor aviatorExecutor;
+
+    @Setup
+    public void setup() {
+        env = new HashMap<>();
+        env.put("业务类型", "转账");
+        env.put("备注", "代发任务 基金代发任务 20200101123456789012");
+        env.put("服务费", "1.25");
+        aviatorParser = AviatorExpressionParser.getInstance();
+        aviatorExecutor = aviatorParser.parseExpressionWithCache(EXPRESSION);
+    }
+
+    @Benchmark
+    public ExpressionExecutor parse() {
+        return aviatorParser.parseExpression(EXPRESSION);
+    }
+
+    @Benchmark
+    public ExpressionExecutor parseWithCache() {
+        return aviatorParser.parseExpressionWithCache(EXPRESSION);
+    }
+
+    @Benchmark
+    public Object execute() {
+        return aviatorExecutor.execute(env);
+    }
+
+    @Benchmark
+    public Object nullExecute() {
+        return NullExpressionExecutor.getInstance().execute(env);
+    }
+
+}
@@ -0,0 +1,91 @@
+package expression.cheney.benchmark;
+
+import expression.cheney.ExpressionExecutor;
+import expression.cheney.NumericMode;
+import expression.cheney.ReflectExpressionParser;
+import expression.cheney.test.TestFunction;
+import org.openjdk.jmh.annotations.*;
+import reflect.methodHolder.DefaultMethodHolderFactory;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ReflectExpressionParser解析与执行基准测试
+ * 表达式取自{@link expression.cheney.test.Main}，运行方式见pom.xml中的benchmark profile，
+ * 加上-prof gc输出每次操作的内存分配；
+ * Aviator与空值表达式见{@link AviatorBenchmark}
+ *
+ * @author cheney
+ * @date 2020-01-25
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExpressionBenchmark {
+
+    private final static Map<String, String> EXPRESSIONS = new HashMap<>();
+
+    static {
+        EXPRESSIONS.put("ifs", "ifs(业务类型=='其它'&&contains(备注,'天猫物流破损险'),substring(备注,21,18),业务类型=='转账'&&contains(备注,'基金代发任务'),substring(备注,5,18),业务类型=='其它'&&(contains(备注,'售后支付')||contains(备注,'商家保证金理赔')||contains(备注,'保证金退款'))||(业务类型=='转账'&&(contains(备注,'天天特卖')||contains(备注,'售后退款'))),substring(商户订单号,5,18),true,业务基础订单号)");
+        EXPRESSIONS.put("number", "to_number(服务费)+to_number(团长佣金)");
+        EXPRESSIONS.put("logic", "(业务类型=='在线支付'||业务类型=='交易付款')||(业务类型=='转账'&&contains(备注,'基金代发任务'))||(业务类型=='交易分账'&&contains(备注,'境内商户结算'))");
+    }
+
+    /**
+     * 表达式名称
+     */
+    @Param({"ifs", "number", "logic"})
+    public String name;
+
+    /**
+     * 数值运算模式
+     */
+    @Param({"DECIMAL", "DOUBLE"})
+    public NumericMode numericMode;
+
+    private String expression;
+
+    private Map<String, Object> env;
+
+    private ReflectExpressionParser reflectParser;
+
+    private ExpressionExecutor reflectExecutor;
+
+    @Setup
+    public void setup() {
+        expression = EXPRESSIONS.get(name);
+        env = new HashMap<>();
+        env.put("业务类型", "转账");
+        env.put("备注", "代发任务 基金代发任务 20200101123456789012");
+        env.put("商户订单号", "T200P20200101123456789012");
+        env.put("业务基础订单号", "20200101123456789012");
+        env.put("服务费", "1.25");
+        env.put("团长佣金", "3.5");
+        reflectParser = ReflectExpressionParser.getInstance(new DefaultMethodHolderFactory(),
+                Collections.singleton(TestFunction.class));
+        reflectParser.setNumericMode(numericMode);
+        reflectExecutor = reflectParser.parseExpression(expression);
+    }
+
+    @Benchmark
+    public ExpressionExecutor parseExpression() {
+        return reflectParser.parseExpression(expression);
+    }
+
+    @Benchmark
+    public ExpressionExecutor parseExpressionWithCache() {
+        return reflectParser.parseExpressionWithCache(expression);
+    }
+
+    @Benchmark
+    public Object execute() {
+        return reflectExecutor.execute(env);
+    }
+
+}
@@ -0,0 +1,58 @@
+package reflect.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import reflect.methodHolder.DefaultMethodHolderFactory;
+import reflect.methodHolder.HandleMethodHolder;
+import reflect.methodHolder.MethodHolder;
+import reflect.methodHolder.MethodInvoker;
+import reflect.methodHolder.StatusMethodHolder;
+import reflect.methodHolder.TestMain;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 函数调用基准测试
+ * 反射调用({@link StatusMethodHolder})与MethodHandle调用({@link HandleMethodHolder})对比，
+ * 函数取自{@link TestMain.OverloadFunction}，运行方式见pom.xml中的benchmark profile
+ *
+ * @author cheney
+ * @date 2020-01-30
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MethodHolderBenchmark {
+
+    /**
+     * MethodHolder实现
+     */
+    @Param({"StatusMethodHolder", "HandleMethodHolder"})
+    public String holder;
+
+    private MethodInvoker varargs;
+
+    private MethodInvoker fixed;
+
+    @Setup
+    public void setup() {
+        Class<? extends MethodHolder> holderClass = "HandleMethodHolder".equals(holder) ?
+                HandleMethodHolder.class : StatusMethodHolder.class;
+        MethodHolder methodHolder = new DefaultMethodHolderFactory().getMethodHolder(TestMain.OverloadFunction.class, holderClass);
+        varargs = methodHolder.getInvoker("sum", 3);
+        fixed = methodHolder.getInvoker("describe", 2);
+    }
+
+    @Benchmark
+    public Object varargs() {
+        return varargs.invoke(1, 2, 3);
+    }
+
+    @Benchmark
+    public Object fixed() {
+        return fixed.invoke("a", 1);
+    }
+
+}
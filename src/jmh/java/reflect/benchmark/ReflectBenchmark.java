@@ -0,0 +1,43 @@
+package reflect.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import reflect.ReflectUtils;
+import reflect.pojo.Admin;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 属性读取基准测试
+ * 逐次查找read方法后反射调用与属性访问表{@link reflect.PropertyAccessors}对比，
+ * 运行方式见pom.xml中的benchmark profile
+ *
+ * @author cheney
+ * @date 2020-01-30
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReflectBenchmark {
+
+    private Admin admin;
+
+    @Setup
+    public void setup() {
+        admin = new Admin();
+        admin.setUsername("cheney");
+    }
+
+    @Benchmark
+    public Object getReadMethod() throws Exception {
+        return ReflectUtils.getReadMethod(Admin.class, "username").invoke(admin);
+    }
+
+    @Benchmark
+    public Object propertyAccessors() {
+        return ReflectUtils.readValue(admin, "username");
+    }
+
+}
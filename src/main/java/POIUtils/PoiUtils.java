@@ -5,15 +5,21 @@ import POIUtils.entity.ReadResult;
 import POIUtils.exception.WorkBookReadException;
 import POIUtils.worker.HSSFWorkbookBuilder;
 import POIUtils.worker.WorkBookReader;
+import POIUtils.worker.XSSFStreamReader;
 import org.apache.poi.hssf.usermodel.HSSFWorkbook;
 import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 /**
  * create by cheny
@@ -35,6 +41,17 @@ public class PoiUtils {
         private final static WorkBookReader WORKBOOK_READER = new WorkBookReader();
     }
 
+    /**
+     * 单例模式
+     */
+    private static class XSSFStreamReaderHolder {
+        private final static XSSFStreamReader XSSF_STREAM_READER = new XSSFStreamReader();
+    }
+
+    public static XSSFStreamReader getXSSFStreamReader() {
+        return XSSFStreamReaderHolder.XSSF_STREAM_READER;
+    }
+
     public static WorkBookReader getWorkBookReader() {
         return WorkbookReaderHolder.WORKBOOK_READER;
     }
@@ -53,6 +70,47 @@ public class PoiUtils {
         return getHSSFWorkbookBuilder().createSheet(data);
     }
 
+    /**
+     * 流式创建一张含有数据的xlsx表，内存中只保留{@link HSSFWorkbookBuilder#DEFAULT_WINDOW_SIZE}行
+     *
+     * @param targetClass 数据类型
+     * @param data        数据
+     * @return 表格，写出后需调用{@link SXSSFWorkbook#dispose()}删除临时文件
+     */
+    public static SXSSFWorkbook createStreamingSheet(Class<?> targetClass, Iterator<?> data) {
+        return getHSSFWorkbookBuilder().createStreamingSheet(targetClass, data);
+    }
+
+    /**
+     * 流式创建一张含有数据的xlsx表
+     *
+     * @param targetClass       数据类型
+     * @param data              数据
+     * @param windowSize        内存中保留的行数
+     * @param compressTempFiles 是否压缩临时文件
+     * @return 表格，写出后需调用{@link SXSSFWorkbook#dispose()}删除临时文件
+     */
+    public static SXSSFWorkbook createStreamingSheet(Class<?> targetClass, Stream<?> data, int windowSize, boolean compressTempFiles) {
+        return getHSSFWorkbookBuilder().createStreamingSheet(targetClass, data, windowSize, compressTempFiles);
+    }
+
+    /**
+     * 流式导出xlsx表到输出流，写出后删除临时文件，输出流不关闭
+     *
+     * @param targetClass 数据类型
+     * @param data        数据
+     * @param out         输出流
+     */
+    public static void writeStreamingSheet(Class<?> targetClass, Stream<?> data, OutputStream out) throws IOException {
+        SXSSFWorkbook workbook = getHSSFWorkbookBuilder().createStreamingSheet(targetClass, data,
+                HSSFWorkbookBuilder.DEFAULT_WINDOW_SIZE, true);
+        try {
+            workbook.write(out);
+        } finally {
+            workbook.dispose();
+        }
+    }
+
     /**
      * 创建一张表头
      *
@@ -121,6 +179,31 @@ public class PoiUtils {
         return getWorkBookReader().readAsMap(fileName, inputStream, excelReadInfo);
     }
 
+    /**
+     * 流式读取xlsx数据，每行映射后交给handler，不保留已读取的行
+     *
+     * @param file        xlsx文件
+     * @param targetClass 目标类型
+     * @param handler     行处理
+     * @param <T>         类型
+     * @return 处理的行数
+     */
+    public static <T> int readStream(File file, Class<T> targetClass, XSSFStreamReader.RowHandler<T> handler) {
+        return getXSSFStreamReader().read(file, targetClass, handler);
+    }
+
+    /**
+     * 流式读取xlsx数据为Map，每行映射后交给handler，不保留已读取的行
+     *
+     * @param file          xlsx文件
+     * @param excelReadInfo 读取信息
+     * @param handler       行处理
+     * @return 处理的行数
+     */
+    public static int readAsMapStream(File file, ExcelReadInfo excelReadInfo, XSSFStreamReader.RowHandler<Map<String, Object>> handler) {
+        return getXSSFStreamReader().readAsMap(file, excelReadInfo, handler);
+    }
+
     /**
      * 回写数据
      *
@@ -3,20 +3,40 @@ package POIUtils.demo;
 import POIUtils.PoiUtils;
 import POIUtils.annotation.ExcelHead;
 import POIUtils.entity.ExcelReadInfo;
+import POIUtils.entity.ReadProperty;
 import POIUtils.entity.ReadResult;
+import POIUtils.exception.WorkBookReadException;
+import POIUtils.worker.RowBinder;
+import POIUtils.worker.WorkBookReader;
+import org.apache.poi.hssf.usermodel.HSSFDateUtil;
 import org.apache.poi.hssf.usermodel.HSSFWorkbook;
 import org.apache.poi.hssf.util.HSSFColor;
 import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
 import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.Assert;
 import org.junit.Test;
+import reflect.ReflectUtils;
 
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 public class Main {
     public static void main(String[] args) {
@@ -98,4 +118,238 @@ public class Main {
         sheets.write(new FileOutputStream(file1));
     }
 
+    @Test
+    public void testStream() throws IOException {
+        File file = File.createTempFile("stream", ".xlsx");
+        file.deleteOnExit();
+        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+            Sheet sheet = workbook.createSheet();
+            Row title = sheet.createRow(0);
+            String[] titles = {"微信", "姓名", "金额", "日期"};
+            for (int i = 0; i < titles.length; i++) {
+                title.createCell(i).setCellValue(titles[i]);
+            }
+            CellStyle dateStyle = workbook.createCellStyle();
+            dateStyle.setDataFormat(workbook.createDataFormat().getFormat("yyyy-MM-dd"));
+            for (int i = 1; i <= 1000; i++) {
+                Row row = sheet.createRow(i);
+                row.createCell(0).setCellValue("微信" + i);
+                row.createCell(1).setCellValue("Name" + i);
+                row.createCell(2).setCellValue(i);
+                Cell date = row.createCell(3);
+                date.setCellValue(new Date(0));
+                date.setCellStyle(dateStyle);
+            }
+            sheet.createRow(1001).createCell(0).setCellValue("结束");
+            workbook.write(new FileOutputStream(file));
+        }
+        // 缺少映射列的行结果为null
+        List<MemberVoPOI> members = new ArrayList<>();
+        int count = PoiUtils.readStream(file, MemberVoPOI.class, (rowNum, member) -> members.add(member));
+        Assert.assertEquals(1001, count);
+        Assert.assertEquals("微信1", members.get(0).getWechat());
+        Assert.assertNull(members.get(1000));
+        List<Map<String, Object>> rows = new ArrayList<>();
+        count = PoiUtils.readAsMapStream(file, ExcelReadInfo.readInfo(null, 0, null,
+                row -> "结束".equals(row.getCell(0).getStringCellValue())), (rowNum, row) -> rows.add(row));
+        Assert.assertEquals(1000, count);
+        Assert.assertEquals("Name1000", rows.get(999).get("姓名"));
+        Assert.assertEquals(1000.0, rows.get(999).get("金额"));
+        Assert.assertEquals(new Date(0), rows.get(0).get("日期"));
+    }
+
+    @Test
+    public void testStreamStopRow() throws IOException {
+        File file = File.createTempFile("stop", ".xlsx");
+        file.deleteOnExit();
+        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+            Sheet sheet = workbook.createSheet();
+            Row title = sheet.createRow(0);
+            title.createCell(0).setCellValue("姓名");
+            title.createCell(300).setCellValue("备注");
+            for (int i = 1; i <= 6; i++) {
+                // 第4行不写入任何单元格
+                if (i != 4) {
+                    Row row = sheet.createRow(i);
+                    row.createCell(0).setCellValue("Name" + i);
+                    row.createCell(300).setCellValue("备注" + i);
+                }
+            }
+            workbook.write(new FileOutputStream(file));
+        }
+        // 不存在的行以null判断是否停止，超过255的列也能用于判断
+        ExcelReadInfo readInfo = ExcelReadInfo.readInfo(null, 0, null,
+                row -> row == null || "备注2".equals(row.getCell(300).getStringCellValue()));
+        List<Map<String, Object>> rows = new ArrayList<>();
+        int count = PoiUtils.readAsMapStream(file, readInfo, (rowNum, row) -> rows.add(row));
+        Assert.assertEquals(1, count);
+        Assert.assertEquals("备注1", rows.get(0).get("备注"));
+        Assert.assertEquals(rows, PoiUtils.readAsMap(file, readInfo).getData());
+        readInfo = ExcelReadInfo.readInfo(null, 0, null, row -> row == null);
+        rows.clear();
+        count = PoiUtils.readAsMapStream(file, readInfo, (rowNum, row) -> rows.add(row));
+        Assert.assertEquals(3, count);
+        Assert.assertEquals(rows, PoiUtils.readAsMap(file, readInfo).getData());
+    }
+
+    @Test
+    public void testStreamDate1904() throws Exception {
+        File file = File.createTempFile("date1904", ".xlsx");
+        file.deleteOnExit();
+        Date date = new Date(1580313600000L);
+        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+            workbook.getCTWorkbook().getWorkbookPr().setDate1904(true);
+            CellStyle dateStyle = workbook.createCellStyle();
+            dateStyle.setDataFormat(workbook.createDataFormat().getFormat("yyyy-MM-dd HH:mm:ss"));
+            Sheet sheet = workbook.createSheet();
+            sheet.createRow(0).createCell(0).setCellValue("日期");
+            for (int i = 1; i <= 2; i++) {
+                Cell cell = sheet.createRow(i).createCell(0);
+                cell.setCellValue(date);
+                cell.setCellStyle(dateStyle);
+            }
+            workbook.write(new FileOutputStream(file));
+        }
+        // 1904日期系统的日期与WorkBookReader一致，CellStopFunction读取的日期相同
+        ExcelReadInfo readInfo = ExcelReadInfo.readInfo(null, 0, null,
+                row -> row == null || !date.equals(row.getCell(0).getDateCellValue()));
+        List<Map<String, Object>> rows = new ArrayList<>();
+        int count = PoiUtils.readAsMapStream(file, readInfo, (rowNum, row) -> rows.add(row));
+        Assert.assertEquals(2, count);
+        Assert.assertEquals(date, rows.get(0).get("日期"));
+        Assert.assertEquals(rows, PoiUtils.readAsMap(file, readInfo).getData());
+    }
+
+    @Test
+    public void testStreamingSheet() throws Exception {
+        File file = File.createTempFile("export", ".xlsx");
+        file.deleteOnExit();
+        int count = 20000;
+        Stream<OrderVoPOI> orders = IntStream.range(0, count).mapToObj(i -> new OrderVoPOI("NO" + i,
+                i % 2 == 0 ? Arrays.asList("A" + i, "B" + i, "C" + i) : Collections.emptyList(), i));
+        long start = System.currentTimeMillis();
+        SXSSFWorkbook workbook = PoiUtils.createStreamingSheet(OrderVoPOI.class, orders, 50, true);
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            workbook.write(out);
+        } finally {
+            workbook.dispose();
+        }
+        System.out.println("流式导出" + count + "条用时" + (System.currentTimeMillis() - start) + "ms");
+        try (XSSFWorkbook read = new XSSFWorkbook(file)) {
+            Sheet sheet = read.getSheet("订单");
+            // 标题1行，表头1行，偶数条数据3行，奇数条数据1行
+            Assert.assertEquals(1 + count / 2 * 3 + count / 2, sheet.getLastRowNum());
+            // 标题合并1个，偶数条数据的订单号与金额各合并1个
+            Assert.assertEquals(1 + count / 2 * 2, sheet.getNumMergedRegions());
+            Assert.assertEquals("订单明细", sheet.getRow(0).getCell(0).getStringCellValue());
+            Assert.assertEquals("商品", sheet.getRow(1).getCell(1).getStringCellValue());
+            Assert.assertEquals("NO0", sheet.getRow(2).getCell(0).getStringCellValue());
+            Assert.assertEquals("C0", sheet.getRow(4).getCell(1).getStringCellValue());
+            Assert.assertEquals("NO1", sheet.getRow(5).getCell(0).getStringCellValue());
+            Assert.assertEquals("-", sheet.getRow(5).getCell(1).getStringCellValue());
+        }
+        HSSFWorkbook hssf = PoiUtils.createSheet(Collections.singletonList(new OrderVoPOI("NO0", Arrays.asList("A", "B"), 1)));
+        Assert.assertEquals(3, hssf.getSheetAt(0).getNumMergedRegions());
+    }
+
+    @Test
+    public void testRowBinder() throws Exception {
+        int count = 100;
+        XSSFWorkbook workbook = new XSSFWorkbook();
+        Sheet sheet = workbook.createSheet();
+        Row title = sheet.createRow(0);
+        String[] titles = {"编号", "数量", "单价", "金额", "日期", "有效"};
+        for (int i = 0; i < titles.length; i++) {
+            title.createCell(i).setCellValue(titles[i]);
+        }
+        CellStyle dateStyle = workbook.createCellStyle();
+        dateStyle.setDataFormat(workbook.createDataFormat().getFormat("yyyy-MM-dd"));
+        for (int i = 1; i <= count; i++) {
+            Row row = sheet.createRow(i);
+            row.createCell(0).setCellValue(i * 0.5);
+            row.createCell(1).setCellValue(i + 0.5);
+            row.createCell(2).setCellValue(String.valueOf(i * 0.25));
+            row.createCell(3).setCellValue(i * 0.01);
+            Cell date = row.createCell(4);
+            date.setCellValue(new Date(i * 60000L));
+            date.setCellStyle(dateStyle);
+            row.createCell(5).setCellValue(i % 2 == 0 ? "是" : "否");
+        }
+        Map<Integer, ReadProperty> readPropertyMap = new WorkBookReader().analysisAnnotation(ReportVoPOI.class, title);
+        Map<Integer, String> titleMap = IntStream.range(0, titles.length).boxed()
+                .collect(Collectors.toMap(i -> i, i -> titles[i]));
+        RowBinder<ReportVoPOI> rowBinder = RowBinder.of(ReportVoPOI.class, titleMap);
+        Assert.assertSame(rowBinder, RowBinder.of(ReportVoPOI.class, titleMap));
+        // 只多出未映射列的标题行共用同一个绑定器
+        Map<Integer, String> extraTitleMap = new HashMap<>(titleMap);
+        extraTitleMap.put(titles.length, "备注");
+        Assert.assertSame(rowBinder, RowBinder.of(ReportVoPOI.class, extraTitleMap));
+        // 原实现：遍历Map，经TypeSwitchChain转换后反射调用setter，与RowBinder结果一致；吞吐量见RowBinderBenchmark
+        ReportVoPOI[] before = new ReportVoPOI[count + 1];
+        ReportVoPOI[] after = new ReportVoPOI[count + 1];
+        for (int i = 1; i <= count; i++) {
+            Row row = sheet.getRow(i);
+            ReportVoPOI t = ReflectUtils.newObject(ReportVoPOI.class, null, null);
+            for (Map.Entry<Integer, ReadProperty> entry : readPropertyMap.entrySet()) {
+                entry.getValue().writerUnknownTypeValue(t, getCellValue(row.getCell(entry.getKey())));
+            }
+            before[i] = t;
+            after[i] = rowBinder.bind(row);
+        }
+        for (int i = 1; i <= count; i++) {
+            Assert.assertEquals(before[i], after[i]);
+        }
+        Assert.assertEquals("0.5", after[1].getCode());
+        Assert.assertEquals(Integer.valueOf(1), after[1].getCount());
+        Assert.assertEquals(new BigDecimal("0.01"), after[1].getAmount());
+        Assert.assertEquals(Boolean.TRUE, after[2].getValid());
+    }
+
+    @Test
+    public void testRowBinderDateCell() throws Exception {
+        XSSFWorkbook workbook = new XSSFWorkbook();
+        Sheet sheet = workbook.createSheet();
+        Row title = sheet.createRow(0);
+        title.createCell(0).setCellValue("数量");
+        title.createCell(1).setCellValue("有效");
+        CellStyle dateStyle = workbook.createCellStyle();
+        dateStyle.setDataFormat(workbook.createDataFormat().getFormat("yyyy-MM-dd"));
+        Row row = sheet.createRow(1);
+        Cell count = row.createCell(0);
+        count.setCellValue(new Date(0));
+        count.setCellStyle(dateStyle);
+        Cell valid = row.createCell(1);
+        valid.setCellValue(new Date(0));
+        valid.setCellStyle(dateStyle);
+        // 数字类型属性读到日期格式单元格时与原实现一致转换失败，不写入Excel日期序列号
+        ReadProperty countProperty = new WorkBookReader().analysisAnnotation(ReportVoPOI.class, title).get(0);
+        try {
+            countProperty.writerUnknownTypeValue(new ReportVoPOI(), getCellValue(count));
+            Assert.fail();
+        } catch (NumberFormatException e) {
+            // 原实现
+        }
+        RowBinder<ReportVoPOI> rowBinder = RowBinder.of(ReportVoPOI.class, Collections.singletonMap(0, "数量"));
+        try {
+            rowBinder.bind(row);
+            Assert.fail();
+        } catch (WorkBookReadException e) {
+            Assert.assertTrue(e.getCause() instanceof NumberFormatException);
+        }
+        // 布尔类型属性不判断日期格式，结果相同
+        Map<Integer, String> validTitle = Collections.singletonMap(1, "有效");
+        Assert.assertEquals(Boolean.FALSE, RowBinder.of(ReportVoPOI.class, validTitle).bind(row).getValid());
+    }
+
+    private static Object getCellValue(Cell cell) {
+        switch (cell.getCellTypeEnum()) {
+            case STRING:
+                return cell.getStringCellValue();
+            case NUMERIC:
+                return HSSFDateUtil.isCellDateFormatted(cell) ? cell.getDateCellValue() : cell.getNumericCellValue();
+            default:
+                return null;
+        }
+    }
+
 }
@@ -0,0 +1,59 @@
+package POIUtils.demo;
+
+import POIUtils.annotation.ExcelCell;
+import POIUtils.annotation.ExcelHead;
+
+import java.util.List;
+
+/**
+ * 含List字段的导出示例，List的每个元素占一行，其余列合并
+ *
+ * @author cheney
+ * @date 2020-01-30
+ */
+@ExcelHead(headTitle = "订单明细", sheetName = "订单")
+public class OrderVoPOI {
+
+    @ExcelCell(name = "订单号")
+    private String orderNo;
+
+    @ExcelCell(name = "商品", isList = true)
+    private List<String> goods;
+
+    @ExcelCell(name = "金额")
+    private Integer amount;
+
+    public OrderVoPOI() {
+    }
+
+    public OrderVoPOI(String orderNo, List<String> goods, Integer amount) {
+        this.orderNo = orderNo;
+        this.goods = goods;
+        this.amount = amount;
+    }
+
+    public String getOrderNo() {
+        return orderNo;
+    }
+
+    public void setOrderNo(String orderNo) {
+        this.orderNo = orderNo;
+    }
+
+    public List<String> getGoods() {
+        return goods;
+    }
+
+    public void setGoods(List<String> goods) {
+        this.goods = goods;
+    }
+
+    public Integer getAmount() {
+        return amount;
+    }
+
+    public void setAmount(Integer amount) {
+        this.amount = amount;
+    }
+
+}
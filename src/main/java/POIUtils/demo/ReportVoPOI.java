@@ -0,0 +1,36 @@
+package POIUtils.demo;
+
+import POIUtils.annotation.ExcelData;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+/**
+ * 各常用类型的读取示例
+ *
+ * @author cheney
+ * @date 2020-01-30
+ */
+@Data
+public class ReportVoPOI {
+
+    @ExcelData(type = ExcelData.SwitchType.COLUMN_TITLE, columnTitle = "编号")
+    private String code;
+
+    @ExcelData(type = ExcelData.SwitchType.COLUMN_TITLE, columnTitle = "数量")
+    private Integer count;
+
+    @ExcelData(type = ExcelData.SwitchType.COLUMN_TITLE, columnTitle = "单价")
+    private Double price;
+
+    @ExcelData(type = ExcelData.SwitchType.COLUMN_TITLE, columnTitle = "金额")
+    private BigDecimal amount;
+
+    @ExcelData(type = ExcelData.SwitchType.COLUMN_TITLE, columnTitle = "日期")
+    private Date date;
+
+    @ExcelData(type = ExcelData.SwitchType.COLUMN_TITLE, columnTitle = "有效")
+    private Boolean valid;
+
+}
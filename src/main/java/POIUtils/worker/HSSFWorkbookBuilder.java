@@ -2,31 +2,45 @@ package POIUtils.worker;
 
 import POIUtils.annotation.ExcelCell;
 import POIUtils.annotation.ExcelHead;
-import org.apache.poi.hssf.usermodel.*;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
 import org.apache.poi.ss.usermodel.BorderStyle;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.DataValidation;
+import org.apache.poi.ss.usermodel.DataValidationHelper;
+import org.apache.poi.ss.usermodel.Font;
 import org.apache.poi.ss.usermodel.HorizontalAlignment;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.VerticalAlignment;
+import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.ss.util.CellRangeAddress;
 import org.apache.poi.ss.util.CellRangeAddressList;
-import org.apache.poi.ss.util.RegionUtil;
-import reflect.ReflectUtils;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTMergeCells;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTWorksheet;
+import reflect.PropertyAccessors;
 
 import java.lang.reflect.Field;
-import java.util.LinkedHashMap;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
+import java.util.stream.Stream;
 
 /**
  * excel表创建者
+ * xls表在内存中创建；xlsx表由{@link SXSSFWorkbook}流式创建，内存中只保留窗口内的行，
+ * 超出窗口的行写入临时文件，数据逐行从Iterator/Stream读取，适合大数据量导出
  *
  * @apiNote   test on 2018/5/9 1w数据量导入mysql,用时12秒
  *
  */
 public class HSSFWorkbookBuilder {
 
-    private final static String LIST_FIELD = "LIST_FIELD";
-
-    private final static String TITLE = "HAS_TITLE";
+    /**
+     * 流式导出默认内存中保留的行数
+     */
+    public final static int DEFAULT_WINDOW_SIZE = SXSSFWorkbook.DEFAULT_WINDOW_SIZE;
 
     /**
      * 创建空表格
@@ -53,19 +67,59 @@ public class HSSFWorkbookBuilder {
         }
         Class<?> entityType = data.get(0).getClass();
         HSSFWorkbook workbook = new HSSFWorkbook();
-        Map<String, Object> head = createHead(workbook, entityType);
-        createContext(workbook, data, head);
+        Layout layout = createHead(workbook, entityType);
+        createContext(workbook, data.iterator(), layout);
+        return workbook;
+
+    }
+
+    /**
+     * 流式导出xlsx表格，使用默认窗口大小并压缩临时文件
+     *
+     * @param targetClass 数据类型
+     * @param data        数据
+     * @return 表格，写出后需调用{@link SXSSFWorkbook#dispose()}删除临时文件
+     */
+    public SXSSFWorkbook createStreamingSheet(Class<?> targetClass, Iterator<?> data) {
+        return createStreamingSheet(targetClass, data, DEFAULT_WINDOW_SIZE, true);
+    }
+
+    /**
+     * 流式导出xlsx表格
+     *
+     * @param targetClass       数据类型
+     * @param data              数据
+     * @param windowSize        内存中保留的行数，超出的行写入临时文件
+     * @param compressTempFiles 是否压缩临时文件
+     * @return 表格，写出后需调用{@link SXSSFWorkbook#dispose()}删除临时文件
+     */
+    public SXSSFWorkbook createStreamingSheet(Class<?> targetClass, Iterator<?> data, int windowSize, boolean compressTempFiles) {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(null, windowSize, compressTempFiles);
+        Layout layout = createHead(workbook, targetClass);
+        createContext(workbook, data, layout);
         return workbook;
+    }
 
+    /**
+     * 流式导出xlsx表格
+     *
+     * @param targetClass       数据类型
+     * @param data              数据，导出结束后不关闭
+     * @param windowSize        内存中保留的行数，超出的行写入临时文件
+     * @param compressTempFiles 是否压缩临时文件
+     * @return 表格，写出后需调用{@link SXSSFWorkbook#dispose()}删除临时文件
+     */
+    public SXSSFWorkbook createStreamingSheet(Class<?> targetClass, Stream<?> data, int windowSize, boolean compressTempFiles) {
+        return createStreamingSheet(targetClass, data.iterator(), windowSize, compressTempFiles);
     }
 
     /**
      * 设置表头
      */
-    private Map<String, Object> createHead(HSSFWorkbook workbook, Class<?> targetClass) {
+    private Layout createHead(Workbook workbook, Class<?> targetClass) {
 
         ExcelHead excelHead = targetClass.getAnnotation(ExcelHead.class);
-        workbook.createSheet(excelHead != null ? excelHead.sheetName() : "sheet");
+        Sheet sheet = workbook.createSheet(excelHead != null && !"".equals(excelHead.sheetName()) ? excelHead.sheetName() : "sheet");
         //若有标题则第一行用于放标题
         String title = null;
         int startRowNumber = 0;
@@ -74,122 +128,144 @@ public class HSSFWorkbookBuilder {
             startRowNumber++;
         }
 
-        HSSFSheet sheet = workbook.getSheetAt(0);
-        int column = 0;
-        Map<String, Object> headInfo = new LinkedHashMap<>();
-        headInfo.put(LIST_FIELD, null);
-        HSSFRow startRow = sheet.createRow(startRowNumber);
-
-        //获取头部style
-        HSSFCellStyle headStyle = getHeadStyle(workbook);
-
+        List<Field> fields = new ArrayList<>();
         for (Field field : targetClass.getDeclaredFields()) {
             if (field.isAnnotationPresent(ExcelCell.class)) {
-                ExcelCell cellAnnotation = field.getAnnotation(ExcelCell.class);
-                //行高
-                startRow.setHeight((short) 500);
-                //列宽
-                if (cellAnnotation.wight() > 0) {
-                    sheet.setColumnWidth(column, cellAnnotation.wight() * 1024);
-                } else {
-                    sheet.setColumnWidth(column, cellAnnotation.name().getBytes().length * 500);
-                }
-                //为布尔型的单元格初始化下拉框
-                if (Boolean.class.isAssignableFrom(field.getType()) || boolean.class.isAssignableFrom(field.getType())) {
-                    sheet.addValidationData(initSeller(new String[]{"是", "否"}, startRowNumber + 1, column));
-                }
-                HSSFCell cell = startRow.createCell(column++);
-                cell.setCellStyle(headStyle);
-                cell.setCellValue(cellAnnotation.name());
-                boolean isList = cellAnnotation.isList();
-                if (headInfo.get(LIST_FIELD) == null && isList) {
-                    headInfo.put(LIST_FIELD, field.getName());
-                }
-                headInfo.put(field.getName(), cellAnnotation.isList());
+                fields.add(field);
             }
         }
 
+        //获取头部style
+        CellStyle headStyle = getHeadStyle(workbook);
+
+        //流式写入时行只能按顺序创建，标题行先于表头行创建
         if (title != null) {
-            HSSFCell cell = createTitle(sheet, title, headInfo.size() - 2);
-            cell.getRow().setHeight((short) 800);
-            cell.setCellStyle(headStyle);
-            headInfo.put(TITLE, title);
+            createTitle(sheet, title, fields.size() - 1, headStyle);
         }
 
+        Layout layout = new Layout(fields.size(), startRowNumber + 1);
+        PropertyAccessors accessors = PropertyAccessors.of(targetClass);
+        Row startRow = sheet.createRow(startRowNumber);
+        //行高
+        startRow.setHeight((short) 500);
+        int column = 0;
+        for (Field field : fields) {
+            ExcelCell cellAnnotation = field.getAnnotation(ExcelCell.class);
+            //列宽
+            if (cellAnnotation.wight() > 0) {
+                sheet.setColumnWidth(column, cellAnnotation.wight() * 1024);
+            } else {
+                sheet.setColumnWidth(column, cellAnnotation.name().getBytes().length * 500);
+            }
+            //为布尔型的单元格初始化下拉框
+            if (Boolean.class.isAssignableFrom(field.getType()) || boolean.class.isAssignableFrom(field.getType())) {
+                sheet.addValidationData(initSeller(sheet, new String[]{"是", "否"}, startRowNumber + 1, column));
+            }
+            Cell cell = startRow.createCell(column);
+            cell.setCellStyle(headStyle);
+            cell.setCellValue(cellAnnotation.name());
+            if (layout.listColumn < 0 && cellAnnotation.isList()) {
+                layout.listColumn = column;
+            }
+            layout.lists[column] = cellAnnotation.isList();
+            layout.accessors[column] = accessors.get(field.getName());
+            if (layout.accessors[column] == null) {
+                throw new IllegalArgumentException("can not find getter of " + field.getName() + " in " + targetClass.getName());
+            }
+            column++;
+        }
 
-        return headInfo;
+        return layout;
 
     }
 
-    private HSSFCell createTitle(HSSFSheet sheet, String title, int column) {
-        HSSFCell hssfCell = setValue(sheet, 0, 0, title);
-        CellRangeAddress cellRangeAddress = new CellRangeAddress(0, 0, 0, column);
-        sheet.addMergedRegion(cellRangeAddress);
-        setRegionBorder(cellRangeAddress, sheet);
-        return hssfCell;
+    private void createTitle(Sheet sheet, String title, int column, CellStyle headStyle) {
+        Row row = sheet.createRow(0);
+        row.setHeight((short) 800);
+        Cell cell = row.createCell(0);
+        cell.setCellValue(title);
+        cell.setCellStyle(headStyle);
+        //合并区域内的其余单元格设置相同样式以显示边框
+        for (int i = 1; i <= column; i++) {
+            row.createCell(i).setCellStyle(headStyle);
+        }
+        if (column > 0) {
+            sheet.addMergedRegion(new CellRangeAddress(0, 0, 0, column));
+        }
     }
 
     /**
      * 设置表内容
+     * 按行顺序写入：一条数据含List时占多行，先写完该数据的所有行再写下一条数据，
+     * 流式写入时已写出窗口的行不会再被访问
      */
-    @SuppressWarnings({"unchecked", "ConstantConditions"})
-    private void createContext(HSSFWorkbook workbook, List<?> data, Map<String, Object> headInfo) {
-
-        HSSFSheet sheet = workbook.getSheetAt(0);
-        String listField = (String) headInfo.remove(LIST_FIELD);
-        int row = 1;
-        if (headInfo.remove(TITLE) != null) {
-            row++;
-        }
+    private void createContext(Workbook workbook, Iterator<?> data, Layout layout) {
+
+        Sheet sheet = workbook.getSheetAt(0);
+        int row = layout.startRow;
+        int columns = layout.accessors.length;
 
         //获取内容style
-        HSSFCellStyle countStyle = getCountStyle(workbook);
-
-        for (Object object : data) {
-            int column = 0;
-            Integer size = null;
-            if (listField != null) {
-                List<?> values = (List<?>) ReflectUtils.readValue(object, listField);
-                size = values.size();
+        CellStyle countStyle = getCountStyle(workbook);
+
+        //xlsx的合并区域直接写入sheet的xml，XSSFSheet.addMergedRegion每次都会统计已有合并区域的个数
+        CTMergeCells mergeCells = null;
+        if (workbook instanceof SXSSFWorkbook) {
+            CTWorksheet worksheet = ((SXSSFWorkbook) workbook).getXSSFWorkbook().getSheetAt(0).getCTWorksheet();
+            mergeCells = worksheet.isSetMergeCells() ? worksheet.getMergeCells() : worksheet.addNewMergeCells();
+        }
+
+        Object[] values = new Object[columns];
+        while (data.hasNext()) {
+            Object object = data.next();
+            for (int column = 0; column < columns; column++) {
+                values[column] = layout.accessors[column].read(object);
             }
-            for (Map.Entry<String, Object> entry : headInfo.entrySet()) {
-                Object value = ReflectUtils.readValue(object, entry.getKey());
-                if (value == null) {
-                    value = "-";
-                }
-                //是否有List
-                if (size != null) {
-                    //是否是List
-                    if ((boolean) entry.getValue()) {
-                        List<String> values = (List<String>) value;
-                        if (values.size() == 0) {
-                            HSSFCell cell = setValue(sheet, row, column, "-");
-                            cell.setCellStyle(countStyle);
+            int size = 1;
+            if (layout.listColumn >= 0) {
+                List<?> list = (List<?>) values[layout.listColumn];
+                size = Math.max(list == null ? 0 : list.size(), 1);
+            }
+            for (int i = 0; i < size; i++) {
+                Row nowRow = sheet.createRow(row + i);
+                for (int column = 0; column < columns; column++) {
+                    Cell cell = nowRow.createCell(column);
+                    cell.setCellStyle(countStyle);
+                    Object value = values[column];
+                    if (layout.lists[column]) {
+                        List<?> list = (List<?>) value;
+                        if (list != null && i < list.size()) {
+                            value = list.get(i);
                         } else {
-                            for (int i = 0; i < size; i++) {
-                                HSSFCell cell = setValue(sheet, row + i, column, values.get(i));
-                                cell.setCellStyle(countStyle);
-                            }
+                            value = i == 0 ? null : "";
                         }
-                    } else {
-                        HSSFCell cell = setValue(sheet, row, column, value.toString());
-                        if (size > 0) {
-                            CellRangeAddress cellRangeAddress = new CellRangeAddress(row, row + size - 1, column, column);
-                            sheet.addMergedRegion(cellRangeAddress);
-                            setRegionBorder(cellRangeAddress, sheet);
+                    } else if (i > 0) {
+                        //合并区域内的单元格只设置样式
+                        continue;
+                    }
+                    cell.setCellValue(value == null ? "-" : value.toString());
+                }
+            }
+            //各数据的合并区域互不重叠，跳过重叠校验，否则每次合并需遍历已有的全部合并区域
+            if (size > 1) {
+                for (int column = 0; column < columns; column++) {
+                    if (!layout.lists[column]) {
+                        CellRangeAddress region = new CellRangeAddress(row, row + size - 1, column, column);
+                        if (mergeCells != null) {
+                            mergeCells.addNewMergeCell().setRef(region.formatAsString());
+                        } else {
+                            sheet.addMergedRegionUnsafe(region);
                         }
-                        cell.setCellStyle(countStyle);
                     }
-                } else {
-                    HSSFCell cell = setValue(sheet, row, column, value.toString());
-                    cell.setCellStyle(countStyle);
                 }
-                column++;
             }
-            if (size == null || size == 0) {
-                row++;
+            row += size;
+        }
+        if (mergeCells != null) {
+            if (mergeCells.sizeOfMergeCellArray() == 0) {
+                ((SXSSFWorkbook) workbook).getXSSFWorkbook().getSheetAt(0).getCTWorksheet().unsetMergeCells();
             } else {
-                row += size;
+                mergeCells.setCount(mergeCells.sizeOfMergeCellArray());
             }
         }
 
@@ -200,8 +276,8 @@ public class HSSFWorkbookBuilder {
      *
      * @param workbook
      */
-    private HSSFCellStyle getHeadStyle(HSSFWorkbook workbook) {
-        HSSFCellStyle headStyle = workbook.createCellStyle();
+    private CellStyle getHeadStyle(Workbook workbook) {
+        CellStyle headStyle = workbook.createCellStyle();
         setCenterStyle(headStyle);
         setBorder(headStyle);
         setBoldFont(headStyle, workbook);
@@ -213,8 +289,8 @@ public class HSSFWorkbookBuilder {
      *
      * @param workbook
      */
-    private HSSFCellStyle getCountStyle(HSSFWorkbook workbook) {
-        HSSFCellStyle countStyle = workbook.createCellStyle();
+    private CellStyle getCountStyle(Workbook workbook) {
+        CellStyle countStyle = workbook.createCellStyle();
         setCenterStyle(countStyle);
         setBorder(countStyle);
         return countStyle;
@@ -225,7 +301,7 @@ public class HSSFWorkbookBuilder {
      *
      * @param cellStyle
      */
-    private void setCenterStyle(HSSFCellStyle cellStyle) {
+    private void setCenterStyle(CellStyle cellStyle) {
         cellStyle.setAlignment(HorizontalAlignment.CENTER);
         cellStyle.setVerticalAlignment(VerticalAlignment.CENTER);
     }
@@ -235,55 +311,61 @@ public class HSSFWorkbookBuilder {
      *
      * @param cellStyle
      */
-    private void setBorder(HSSFCellStyle cellStyle) {
+    private void setBorder(CellStyle cellStyle) {
         cellStyle.setBorderBottom(BorderStyle.THIN);
         cellStyle.setBorderLeft(BorderStyle.THIN);
         cellStyle.setBorderRight(BorderStyle.THIN);
         cellStyle.setBorderTop(BorderStyle.THIN);
     }
 
-    private void setRegionBorder(CellRangeAddress cellRangeAddress, HSSFSheet sheet) {
-        RegionUtil.setBorderBottom(BorderStyle.THIN, cellRangeAddress, sheet);
-        RegionUtil.setBorderLeft(BorderStyle.THIN, cellRangeAddress, sheet);
-        RegionUtil.setBorderTop(BorderStyle.THIN, cellRangeAddress, sheet);
-        RegionUtil.setBorderRight(BorderStyle.THIN, cellRangeAddress, sheet);
-    }
-
     /**
      * 设置黑体
      *
      * @param cellStyle
      * @param workbook
      */
-    private void setBoldFont(HSSFCellStyle cellStyle, HSSFWorkbook workbook) {
-        HSSFFont font = workbook.createFont();
+    private void setBoldFont(CellStyle cellStyle, Workbook workbook) {
+        Font font = workbook.createFont();
         font.setBold(true);
         cellStyle.setFont(font);
     }
 
-    /**
-     * 设置单元格内容
-     */
-    private HSSFCell setValue(HSSFSheet sheet, int row, int column, String value) {
-
-        HSSFRow nowRow = sheet.getRow(row) == null ? sheet.createRow(row) : sheet.getRow(row);
-        HSSFCell cell = nowRow.getCell(column) == null ? nowRow.createCell(column) : nowRow.getCell(column);
-        cell.setCellValue(value);
-        return cell;
-
-    }
-
     /**
      * 初始化下拉框
      *
+     * @param sheet    表
      * @param values   下拉框值
      * @param startRow 下拉框开始行
      * @param column   下拉框列
      */
-    private HSSFDataValidation initSeller(String[] values, int startRow, int column) {
-        DVConstraint constraint = DVConstraint.createExplicitListConstraint(values);
+    private DataValidation initSeller(Sheet sheet, String[] values, int startRow, int column) {
+        DataValidationHelper helper = sheet.getDataValidationHelper();
         CellRangeAddressList cellRangeAddressList = new CellRangeAddressList(startRow, 1000, column, column);
-        return new HSSFDataValidation(cellRangeAddressList, constraint);
+        return helper.createValidation(helper.createExplicitListConstraint(values), cellRangeAddressList);
+    }
+
+    /**
+     * 表格布局，由表头解析得到，按列号索引
+     */
+    private static class Layout {
+
+        // 各列属性的访问器
+        private final PropertyAccessors.PropertyAccessor[] accessors;
+
+        // 各列是否为List
+        private final boolean[] lists;
+
+        // 内容开始行
+        private final int startRow;
+
+        // 决定数据行数的List列，没有时为-1
+        private int listColumn = -1;
+
+        Layout(int columns, int startRow) {
+            this.accessors = new PropertyAccessors.PropertyAccessor[columns];
+            this.lists = new boolean[columns];
+            this.startRow = startRow;
+        }
     }
 
 }
@@ -0,0 +1,253 @@
+package POIUtils.worker;
+
+import DesignPattern.TypeSwitchChain.TypeSwitchChain;
+import POIUtils.entity.ReadProperty;
+import POIUtils.exception.WorkBookReadException;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
+import reflect.ReflectException;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 行绑定器
+ * 每个(目标类型,列映射)只编译一次：按列号排列的{@link ColumnBinder}数组，
+ * 每列持有按属性类型选定的转换器与类型为(Object,Object)void的setter句柄，
+ * 映射一行时按数组顺序取值、转换、写入，不再查找Map、遍历{@link TypeSwitchChain}或反射调用
+ * <p>
+ * 转换结果与{@link ReadProperty#writerUnknownTypeValue}一致，
+ * 单元格值不是常见类型(String/Double/Date)时仍交给{@link TypeSwitchChain}转换
+ *
+ * @param <T> 目标类型
+ * @author cheney
+ * @date 2020-01-30
+ */
+public final class RowBinder<T> {
+
+    // k:列映射(k:列号,v:属性名),v:行绑定器
+    private final static ClassValue<ConcurrentHashMap<Map<Integer, String>, RowBinder<?>>> CACHE =
+            new ClassValue<ConcurrentHashMap<Map<Integer, String>, RowBinder<?>>>() {
+                @Override
+                protected ConcurrentHashMap<Map<Integer, String>, RowBinder<?>> computeValue(Class<?> type) {
+                    return new ConcurrentHashMap<>();
+                }
+            };
+
+    private final static MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private final Class<T> targetClass;
+
+    // 无参构造函数，类型为()Object，没有public无参构造函数时为null
+    private final MethodHandle constructor;
+
+    // 按列号从小到大排列
+    private final ColumnBinder[] binders;
+
+    private RowBinder(Class<T> targetClass, Map<Integer, ReadProperty> readPropertyMap) {
+        this.targetClass = targetClass;
+        MethodHandle constructor;
+        try {
+            constructor = MethodHandles.publicLookup().findConstructor(targetClass, MethodType.methodType(void.class))
+                    .asType(MethodType.methodType(Object.class));
+        } catch (Exception e) {
+            constructor = null;
+        }
+        this.constructor = constructor;
+        this.binders = new TreeMap<>(readPropertyMap).entrySet().stream()
+                .map(entry -> new ColumnBinder(entry.getKey(), entry.getValue()))
+                .toArray(ColumnBinder[]::new);
+    }
+
+    /**
+     * 获取行绑定器，每个(目标类型,列映射)只编译一次，
+     * 标题不同但映射到相同属性的标题行共用同一个绑定器，缓存数量不超过目标类型的列映射方式
+     *
+     * @param targetClass 目标类型
+     * @param titles      标题行，k:列号,v:标题
+     * @return 行绑定器
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> RowBinder<T> of(Class<T> targetClass, Map<Integer, String> titles) {
+        Map<Integer, ReadProperty> readPropertyMap = new WorkBookReader().analysisAnnotation(targetClass, titles);
+        Map<Integer, String> columns = new HashMap<>(readPropertyMap.size());
+        readPropertyMap.forEach((column, readProperty) -> columns.put(column, readProperty.getName()));
+        return (RowBinder<T>) CACHE.get(targetClass).computeIfAbsent(columns, key -> new RowBinder<>(targetClass, readPropertyMap));
+    }
+
+    /**
+     * 映射一行，映射列的单元格不存在时返回null
+     *
+     * @param row 行
+     * @return 目标对象
+     */
+    public T bind(Row row) {
+        T t = newTarget();
+        for (ColumnBinder binder : binders) {
+            Cell cell = row.getCell(binder.column);
+            if (cell == null) {
+                return null;
+            }
+            binder.bind(t, binder.read(cell));
+        }
+        return t;
+    }
+
+    /**
+     * 映射流式读取的一行，映射列的单元格不存在时返回null
+     *
+     * @param row 行
+     * @return 目标对象
+     */
+    public T bind(SheetRow row) {
+        T t = newTarget();
+        for (ColumnBinder binder : binders) {
+            if (!row.hasCell(binder.column)) {
+                return null;
+            }
+            binder.bind(t, row.getValue(binder.column));
+        }
+        return t;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T newTarget() {
+        if (constructor == null) {
+            throw new ReflectException("reflect:can no new object");
+        }
+        try {
+            return (T) (Object) constructor.invokeExact();
+        } catch (Throwable e) {
+            throw new ReflectException("reflect:can no new object", e);
+        }
+    }
+
+    public Class<T> getTargetClass() {
+        return targetClass;
+    }
+
+    /**
+     * 单元格值的转换器，传入的值不为null
+     */
+    @FunctionalInterface
+    private interface CellConverter {
+
+        Object convert(Object value);
+
+    }
+
+    /**
+     * 单列的绑定器
+     */
+    private static class ColumnBinder {
+
+        private final static String[] TRUE_VALUE_KEY = {"true", "是"};
+
+        private final int column;
+
+        private final String name;
+
+        private final CellConverter converter;
+
+        // 转换结果是否与数字单元格是否为日期格式有关，无关时跳过日期格式判断；
+        // 数字类型的属性读到日期格式单元格时与原实现一致按Date转换(抛出NumberFormatException)
+        private final boolean dateSensitive;
+
+        // 类型为(Object,Object)void
+        private final MethodHandle setter;
+
+        ColumnBinder(int column, ReadProperty readProperty) {
+            this.column = column;
+            this.name = readProperty.getName();
+            Class<?> type = readProperty.getPropertyClass();
+            this.converter = converter(type);
+            this.dateSensitive = !(Boolean.class == type || boolean.class == type);
+            Method writerMethod = readProperty.getWriterMethod();
+            if (writerMethod == null) {
+                throw new WorkBookReadException("can not find writer method of " + name);
+            }
+            try {
+                writerMethod.setAccessible(true);
+                this.setter = MethodHandles.lookup().unreflect(writerMethod).asType(SETTER_TYPE);
+            } catch (Exception e) {
+                throw new WorkBookReadException("can not bind writer method of " + name, e);
+            }
+        }
+
+        /**
+         * 读取单元格值，与{@link WorkBookReader#getCellValue}一致，
+         * 属性为布尔类型时数字单元格不判断日期格式(Date与数字都转换为false)
+         */
+        Object read(Cell cell) {
+            switch (cell.getCellTypeEnum()) {
+                case STRING:
+                    return cell.getStringCellValue();
+                case NUMERIC:
+                    return dateSensitive ? WorkBookReader.getCellValue(cell) : cell.getNumericCellValue();
+                default:
+                    return null;
+            }
+        }
+
+        void bind(Object target, Object value) {
+            try {
+                setter.invokeExact(target, value == null ? null : converter.convert(value));
+            } catch (Throwable e) {
+                throw new WorkBookReadException("写入" + name + "错误:" + e.getMessage(), e);
+            }
+        }
+
+        /**
+         * 按属性类型选定转换器，转换规则与{@link TypeSwitchChain}中对应的转换器相同
+         */
+        private static CellConverter converter(Class<?> type) {
+            TypeSwitchChain chain = TypeSwitchChain.getTypeSwitchChain();
+            CellConverter fallback = value -> chain.startTransform(type, value);
+            if (String.class == type) {
+                return value -> value instanceof Double ? new BigDecimal((Double) value).toString() : value.toString();
+            }
+            if (Integer.class == type) {
+                // Double.toString在[1e-3,1e7)内为普通小数，截去小数部分与取整相同
+                return value -> {
+                    if (value instanceof Double) {
+                        double d = Math.abs((Double) value);
+                        if (d == 0 || (d >= 1e-3 && d < 1e7)) {
+                            return (int) (double) (Double) value;
+                        }
+                    }
+                    return fallback.convert(value);
+                };
+            }
+            if (Double.class == type) {
+                return value -> value instanceof Double ? value : fallback.convert(value);
+            }
+            if (BigDecimal.class == type) {
+                return value -> value instanceof Double ? BigDecimal.valueOf((Double) value) : fallback.convert(value);
+            }
+            if (Boolean.class == type || boolean.class == type) {
+                return value -> {
+                    String s = value.toString();
+                    for (String key : TRUE_VALUE_KEY) {
+                        if (key.equalsIgnoreCase(s)) {
+                            return true;
+                        }
+                    }
+                    return false;
+                };
+            }
+            if (Date.class == type) {
+                return value -> value instanceof Date ? value : fallback.convert(value);
+            }
+            return fallback;
+        }
+    }
+
+}
@@ -0,0 +1,90 @@
+package POIUtils.worker;
+
+import java.util.Arrays;
+
+/**
+ * 流式读取时的一行数据
+ * 按列号存放单元格值，读取下一行时复用，只清理上一行写入过的列
+ *
+ * @author cheney
+ * @date 2020-01-30
+ */
+public class SheetRow {
+
+    // 行号，从0开始
+    private int rowNum;
+
+    // 单元格值，下标为列号
+    private Object[] values = new Object[16];
+
+    // 单元格是否存在，公式、布尔等不读取值的单元格存在但值为null
+    private boolean[] present = new boolean[16];
+
+    // 当前行存在的列号，按出现顺序
+    private int[] columns = new int[16];
+
+    private int size;
+
+    void reset(int rowNum) {
+        for (int i = 0; i < size; i++) {
+            values[columns[i]] = null;
+            present[columns[i]] = false;
+        }
+        this.size = 0;
+        this.rowNum = rowNum;
+    }
+
+    void put(int column, Object value) {
+        if (column >= values.length) {
+            int length = Math.max(values.length * 2, column + 1);
+            values = Arrays.copyOf(values, length);
+            present = Arrays.copyOf(present, length);
+        }
+        if (!present[column]) {
+            if (size == columns.length) {
+                columns = Arrays.copyOf(columns, size * 2);
+            }
+            columns[size++] = column;
+            present[column] = true;
+        }
+        values[column] = value;
+    }
+
+    public int getRowNum() {
+        return rowNum;
+    }
+
+    /**
+     * 单元格值
+     *
+     * @param column 列号，从0开始
+     * @return 值，单元格不存在时为null
+     */
+    public Object getValue(int column) {
+        return column < values.length ? values[column] : null;
+    }
+
+    /**
+     * 单元格是否存在
+     *
+     * @param column 列号，从0开始
+     */
+    public boolean hasCell(int column) {
+        return column < present.length && present[column];
+    }
+
+    /**
+     * 存在的单元格个数
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 第index个存在的单元格的列号，按单元格出现顺序
+     */
+    public int getColumn(int index) {
+        return columns[index];
+    }
+
+}
@@ -12,6 +12,8 @@ import org.apache.poi.hssf.usermodel.HSSFWorkbook;
 import org.apache.poi.hssf.util.HSSFColor;
 import org.apache.poi.ss.usermodel.*;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import reflect.PropertyAccessors;
+import reflect.ReflectException;
 import reflect.ReflectUtils;
 
 import java.io.File;
@@ -19,8 +21,6 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -103,7 +103,7 @@ public class WorkBookReader {
      * @param workbook    poi Workbook
      * @param targetClass 目标类型
      */
-    private <T> ReadResult<T> read(Workbook workbook, Class<T> targetClass) throws IllegalAccessException, InvocationTargetException {
+    private <T> ReadResult<T> read(Workbook workbook, Class<T> targetClass) {
         Sheet sheet;
         //数据出现行数,从0开始算
         ExcelHead excelHead = targetClass.getAnnotation(ExcelHead.class);
@@ -124,13 +124,13 @@ public class WorkBookReader {
         int startRowNumber = titleRowNum + 1;
         // 分析excel列表映射字段信息
         Row titleRow = sheet.getRow(titleRowNum);
-        Map<Integer, ReadProperty> readPropertyMap = analysisAnnotation(targetClass, titleRow);
+        RowBinder<T> rowBinder = RowBinder.of(targetClass, readTitles(titleRow));
         List<T> results = new ArrayList<>();
         Map<Integer, T> resultWithRow = new HashMap<>();
         // lastRowNum==-1,则无指定结尾行
         lastRowNum = lastRowNum == -1 ? sheet.getLastRowNum() : lastRowNum;
         for (int i = startRowNumber; i <= lastRowNum; i++) {
-            T t = createTarget(targetClass, readPropertyMap, sheet.getRow(i));
+            T t = rowBinder.bind(sheet.getRow(i));
             results.add(t);
             resultWithRow.put(i, t);
         }
@@ -170,12 +170,13 @@ public class WorkBookReader {
             throw new IllegalArgumentException("write back excel,but not find annotation @ExcelWriteBack");
         }
         // 构造注解与读方法的映射
-        Map<ExcelWriteBack, Method> backMethodMap =
+        PropertyAccessors accessors = PropertyAccessors.of(dataClass);
+        Map<ExcelWriteBack, PropertyAccessors.PropertyAccessor> backMethodMap =
                 fieldMap.values().stream().collect(Collectors.toMap(
                         field -> field.getDeclaredAnnotation(ExcelWriteBack.class),
-                        field -> ReflectUtils.getReadMethod(dataClass, field.getName())
+                        field -> readAccessor(accessors, field.getName())
                 ));
-        ArrayList<Method> readMethods = new ArrayList<>();
+        ArrayList<PropertyAccessors.PropertyAccessor> readMethods = new ArrayList<>();
         // 写入标题
         List<ExcelWriteBack> excelWriteBacks = backMethodMap.keySet().stream().sorted(Comparator.comparingInt(ExcelWriteBack::sort)).collect(Collectors.toList());
         int currentColumnNum = titleCount + 1;
@@ -195,7 +196,7 @@ public class WorkBookReader {
             for (int i = 0; i < size; i++) {
                 ExcelWriteBack excelWriteBack = excelWriteBacks.get(i);
                 HSSFColor.HSSFColorPredefined color = excelWriteBack.color();
-                Object cellValue = ReflectUtils.readValue(value, readMethods.get(i));
+                Object cellValue = readMethods.get(i).read(value);
                 if (cellValue != null) {
                     Cell cell = sheet.getRow(index).createCell(_currentColumnNum++);
                     cell.setCellValue(cellValue.toString());
@@ -205,6 +206,17 @@ public class WorkBookReader {
         });
     }
 
+    /**
+     * 获取可读的属性访问器
+     */
+    private PropertyAccessors.PropertyAccessor readAccessor(PropertyAccessors accessors, String property) {
+        PropertyAccessors.PropertyAccessor accessor = accessors.get(property);
+        if (accessor == null || !accessor.isReadable()) {
+            throw new ReflectException("can not find read method with '" + property + "' in " + accessors.getBeanClass().getName());
+        }
+        return accessor;
+    }
+
     /**
      * 回写Map类型数据
      *
@@ -240,32 +252,6 @@ public class WorkBookReader {
         });
     }
 
-    /**
-     * 根据每一行创建一个实体
-     *
-     * @param targetClass     目标class
-     * @param readPropertyMap 字段信息集合
-     * @param row             行
-     * @param <T>             目标泛型
-     * @return
-     * @throws IllegalAccessException
-     * @throws InvocationTargetException
-     */
-    private <T> T createTarget(Class<T> targetClass, Map<Integer, ReadProperty> readPropertyMap, Row row)
-            throws IllegalAccessException, InvocationTargetException {
-        T t = ReflectUtils.newObject(targetClass, null, null);
-        for (Map.Entry<Integer, ReadProperty> entry : readPropertyMap.entrySet()) {
-            ReadProperty readProperty = entry.getValue();
-            Cell cell = row.getCell(entry.getKey());
-            if (cell == null) {
-                return null;
-            }
-            Object value = getCellValue(cell);
-            readProperty.writerUnknownTypeValue(t, value);
-        }
-        return t;
-    }
-
     /**
      * 获取单元格数据(只处理Number和String)
      * Date属于Number
@@ -273,7 +259,7 @@ public class WorkBookReader {
      * @param cell 单元格实体
      * @return 单元格数据
      */
-    private Object getCellValue(Cell cell) {
+    static Object getCellValue(Cell cell) {
         Object value;
         switch (cell.getCellTypeEnum()) {
             case STRING: {
@@ -312,15 +298,37 @@ public class WorkBookReader {
      * @return 解析结果
      */
     public <T> Map<Integer, ReadProperty> analysisAnnotation(Class<T> targetClass, Row titleRow) throws WorkBookReadException {
+        return analysisAnnotation(targetClass, readTitles(titleRow));
+    }
+
+    /**
+     * 读取标题行
+     *
+     * @param titleRow 标题行
+     * @return k:列号,v:标题
+     */
+    private Map<Integer, String> readTitles(Row titleRow) {
+        Map<Integer, String> titles = new LinkedHashMap<>();
+        titleRow.forEach(cell -> titles.put(cell.getColumnIndex(), cell.getStringCellValue()));
+        return titles;
+    }
+
+    /**
+     * 解析注解，获取列对应field的map
+     *
+     * @param targetClass 目标类型
+     * @param titles      标题行，k:列号,v:标题
+     * @return 解析结果
+     */
+    public <T> Map<Integer, ReadProperty> analysisAnnotation(Class<T> targetClass, Map<Integer, String> titles) throws WorkBookReadException {
         //遍历所有含有@ExcelData的字段
         Map<Integer, ReadProperty> readPropertyMap = new HashMap<>();
         Map<String, Integer> titleMap = new HashMap<>();
-        titleRow.forEach(cell -> {
-            String title = cell.getStringCellValue();
+        titles.forEach((index, title) -> {
             if (titleMap.containsKey(title)) {
                 throw new WorkBookReadException("duplicate title value:" + title);
             }
-            titleMap.put(title, cell.getColumnIndex());
+            titleMap.put(title, index);
         });
         for (Field field : targetClass.getDeclaredFields()) {
             ExcelData annotation = field.getAnnotation(ExcelData.class);
@@ -0,0 +1,547 @@
+package POIUtils.worker;
+
+import POIUtils.annotation.ExcelHead;
+import POIUtils.entity.ExcelReadInfo;
+import POIUtils.exception.WorkBookReadException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.SAXHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCell;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.apache.poi.xssf.usermodel.XSSFRow;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import java.io.File;
+import java.io.InputStream;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * xlsx流式读取者
+ * 基于POI的XSSF事件模型(XSSFReader + SAX)逐行解析sheet，每行映射后立即交给{@link RowHandler}，
+ * 不构建XSSFWorkbook，也不保留已读取的行，内存占用与总行数无关(共享字符串表除外)
+ * <p>
+ * 与{@link WorkBookReader}保持一致：
+ * 1.标题行、结束行、sheet名与{@link ExcelHead}/{@link ExcelReadInfo}相同，未配置@ExcelHead时标题行为1;
+ * 2.单元格只读取字符串与数字(日期格式的数字为Date)，公式、布尔等单元格的值为null;
+ * 3.映射列的单元格不存在时该行结果为null，readAsMap时{@link ExcelReadInfo.CellStopFunction}返回true则停止读取;
+ * 4.sheet中不存在的行(未写入任何单元格)直接跳过，readAsMap时仍以null调用{@link ExcelReadInfo.CellStopFunction}。
+ *
+ * @author cheney
+ * @date 2020-01-30
+ */
+public class XSSFStreamReader {
+
+    /**
+     * 流式读取为对象
+     *
+     * @param file        xlsx文件
+     * @param targetClass 目标类型
+     * @param handler     行处理
+     * @param <T>         目标类型泛型
+     * @return 处理的行数
+     */
+    public <T> int read(File file, Class<T> targetClass, RowHandler<T> handler) {
+        return withPackage(() -> OPCPackage.open(file, PackageAccess.READ), opcPackage -> read(opcPackage, targetClass, handler));
+    }
+
+    /**
+     * 流式读取为对象
+     * 注意POI会将输入流中的压缩包解压到内存，大文件应使用{@link #read(File, Class, RowHandler)}
+     *
+     * @param inputStream xlsx输入流
+     * @param targetClass 目标类型
+     * @param handler     行处理
+     * @param <T>         目标类型泛型
+     * @return 处理的行数
+     */
+    public <T> int read(InputStream inputStream, Class<T> targetClass, RowHandler<T> handler) {
+        return withPackage(() -> OPCPackage.open(inputStream), opcPackage -> read(opcPackage, targetClass, handler));
+    }
+
+    /**
+     * 流式读取为Map，k:标题,v:单元格值
+     *
+     * @param file      xlsx文件
+     * @param excelInfo 读取信息
+     * @param handler   行处理
+     * @return 处理的行数
+     */
+    public int readAsMap(File file, ExcelReadInfo excelInfo, RowHandler<Map<String, Object>> handler) {
+        return withPackage(() -> OPCPackage.open(file, PackageAccess.READ), opcPackage -> readAsMap(opcPackage, excelInfo, handler));
+    }
+
+    /**
+     * 流式读取为Map，k:标题,v:单元格值
+     * 注意POI会将输入流中的压缩包解压到内存，大文件应使用{@link #readAsMap(File, ExcelReadInfo, RowHandler)}
+     *
+     * @param inputStream xlsx输入流
+     * @param excelInfo   读取信息
+     * @param handler     行处理
+     * @return 处理的行数
+     */
+    public int readAsMap(InputStream inputStream, ExcelReadInfo excelInfo, RowHandler<Map<String, Object>> handler) {
+        return withPackage(() -> OPCPackage.open(inputStream), opcPackage -> readAsMap(opcPackage, excelInfo, handler));
+    }
+
+    /**
+     * 打开文件包并执行解析，结束后不保存直接关闭
+     */
+    private int withPackage(PackageOpener opener, PackageTask task) {
+        OPCPackage opcPackage = null;
+        try {
+            opcPackage = opener.open();
+            return task.run(opcPackage);
+        } catch (WorkBookReadException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new WorkBookReadException("excel解析失败" + e.getMessage(), e);
+        } finally {
+            if (opcPackage != null) {
+                opcPackage.revert();
+            }
+        }
+    }
+
+    private <T> int read(OPCPackage opcPackage, Class<T> targetClass, RowHandler<T> handler) throws Exception {
+        ExcelHead excelHead = targetClass.getAnnotation(ExcelHead.class);
+        int titleRowNum = 1;
+        int lastRowNum = -1;
+        String sheetName = null;
+        if (excelHead != null) {
+            titleRowNum = excelHead.titleRow();
+            sheetName = "".equals(excelHead.sheetName()) ? null : excelHead.sheetName();
+            lastRowNum = excelHead.endRow();
+        }
+        RowMapper<T> mapper = new RowMapper<T>() {
+
+            private RowBinder<T> rowBinder;
+
+            @Override
+            public void title(Map<Integer, String> titles) {
+                rowBinder = RowBinder.of(targetClass, titles);
+            }
+
+            @Override
+            public T map(SheetRow row) {
+                return rowBinder.bind(row);
+            }
+        };
+        return parse(opcPackage, sheetName, titleRowNum, lastRowNum, null, mapper, handler);
+    }
+
+    private int readAsMap(OPCPackage opcPackage, ExcelReadInfo excelInfo, RowHandler<Map<String, Object>> handler) throws Exception {
+        RowMapper<Map<String, Object>> mapper = new RowMapper<Map<String, Object>>() {
+
+            private Map<Integer, String> titles = new HashMap<>();
+
+            @Override
+            public void title(Map<Integer, String> titles) {
+                this.titles = titles;
+            }
+
+            @Override
+            public Map<String, Object> map(SheetRow row) {
+                Map<String, Object> rowData = new HashMap<>();
+                for (int i = 0; i < row.size(); i++) {
+                    int column = row.getColumn(i);
+                    rowData.put(titles.get(column), row.getValue(column));
+                }
+                return rowData;
+            }
+        };
+        int lastRowNum = excelInfo.getEndRow() == null ? -1 : excelInfo.getEndRow();
+        return parse(opcPackage, excelInfo.getSheetName(), excelInfo.getTitleRow(), lastRowNum,
+                excelInfo.getCellStopFunction(), mapper, handler);
+    }
+
+    /**
+     * 解析sheet
+     *
+     * @param sheetName        sheet名，null时为第一个sheet
+     * @param titleRowNum      标题行号
+     * @param lastRowNum       结束行号(包含)，-1时读取到最后一行
+     * @param cellStopFunction 停止读取的判断，可为null
+     * @param mapper           行映射
+     * @param handler          行处理
+     * @return 处理的行数
+     */
+    private <T> int parse(OPCPackage opcPackage, String sheetName, int titleRowNum, int lastRowNum,
+                          ExcelReadInfo.CellStopFunction cellStopFunction,
+                          RowMapper<T> mapper, RowHandler<T> handler) throws Exception {
+        XSSFReader xssfReader = new XSSFReader(opcPackage);
+        ReadOnlySharedStringsTable sharedStrings = new ReadOnlySharedStringsTable(opcPackage);
+        StylesTable styles = xssfReader.getStylesTable();
+        boolean date1904 = isDate1904(xssfReader);
+        XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) xssfReader.getSheetsData();
+        while (sheets.hasNext()) {
+            try (InputStream sheet = sheets.next()) {
+                if (sheetName != null && !sheetName.equals(sheets.getSheetName())) {
+                    continue;
+                }
+                SheetHandler<T> sheetHandler = new SheetHandler<>(sharedStrings, styles, date1904, titleRowNum,
+                        lastRowNum, cellStopFunction, mapper, handler);
+                XMLReader xmlReader = SAXHelper.newXMLReader();
+                xmlReader.setContentHandler(sheetHandler);
+                try {
+                    xmlReader.parse(new InputSource(sheet));
+                } catch (StopParsingException e) {
+                    // 到达结束行或满足停止条件
+                }
+                return sheetHandler.count;
+            }
+        }
+        throw new WorkBookReadException("can not find sheet:" + sheetName);
+    }
+
+    /**
+     * 是否使用1904日期系统，读取workbook.xml中workbookPr的date1904属性
+     */
+    private static boolean isDate1904(XSSFReader xssfReader) throws Exception {
+        WorkbookPrHandler workbookPrHandler = new WorkbookPrHandler();
+        XMLReader xmlReader = SAXHelper.newXMLReader();
+        xmlReader.setContentHandler(workbookPrHandler);
+        try (InputStream workbook = xssfReader.getWorkbookData()) {
+            xmlReader.parse(new InputSource(workbook));
+        } catch (StopParsingException e) {
+            // 已读取到workbookPr
+        }
+        return workbookPrHandler.date1904;
+    }
+
+    /**
+     * 行处理
+     */
+    @FunctionalInterface
+    public interface RowHandler<T> {
+
+        /**
+         * 处理一行数据
+         *
+         * @param rowNum 行号，从0开始
+         * @param data   映射结果，映射列的单元格不存在时为null
+         */
+        void handle(int rowNum, T data);
+    }
+
+    private interface PackageOpener {
+
+        OPCPackage open() throws Exception;
+    }
+
+    private interface PackageTask {
+
+        int run(OPCPackage opcPackage) throws Exception;
+    }
+
+    /**
+     * 行映射
+     */
+    private interface RowMapper<T> {
+
+        void title(Map<Integer, String> titles);
+
+        T map(SheetRow row) throws Exception;
+    }
+
+    /**
+     * 到达结束行或满足停止条件时中断解析
+     */
+    private static class StopParsingException extends SAXException {
+
+        StopParsingException() {
+            super("stop parsing");
+        }
+    }
+
+    /**
+     * workbook.xml的SAX解析，只读取workbookPr的date1904属性
+     */
+    private static class WorkbookPrHandler extends DefaultHandler {
+
+        private boolean date1904;
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
+            if ("workbookPr".equals(localName)) {
+                String value = attributes.getValue("date1904");
+                date1904 = "1".equals(value) || "true".equalsIgnoreCase(value);
+                throw new StopParsingException();
+            }
+        }
+    }
+
+    /**
+     * sheet的SAX解析，按<row>/<c>/<v>逐行收集单元格
+     */
+    private static class SheetHandler<T> extends DefaultHandler {
+
+        private final ReadOnlySharedStringsTable sharedStrings;
+
+        private final StylesTable styles;
+
+        // 是否使用1904日期系统
+        private final boolean date1904;
+
+        private final int titleRowNum;
+
+        private final int lastRowNum;
+
+        private final ExcelReadInfo.CellStopFunction cellStopFunction;
+
+        private final RowMapper<T> mapper;
+
+        private final RowHandler<T> handler;
+
+        private final SheetRow row = new SheetRow();
+
+        private final StringBuilder text = new StringBuilder();
+
+        // 用于CellStopFunction判断的临时行，只保留当前行
+        private XSSFSheet stopSheet;
+
+        private XSSFCellStyle stopDateStyle;
+
+        private boolean titled;
+
+        private int count;
+
+        private int rowNum = -1;
+
+        private int column;
+
+        // 单元格类型属性t
+        private String cellType;
+
+        // 单元格样式属性s
+        private String cellStyle;
+
+        private boolean hasFormula;
+
+        private boolean hasValue;
+
+        private boolean inText;
+
+        SheetHandler(ReadOnlySharedStringsTable sharedStrings, StylesTable styles, boolean date1904, int titleRowNum,
+                     int lastRowNum, ExcelReadInfo.CellStopFunction cellStopFunction, RowMapper<T> mapper,
+                     RowHandler<T> handler) {
+            this.sharedStrings = sharedStrings;
+            this.styles = styles;
+            this.date1904 = date1904;
+            this.titleRowNum = titleRowNum;
+            this.lastRowNum = lastRowNum;
+            this.cellStopFunction = cellStopFunction;
+            this.mapper = mapper;
+            this.handler = handler;
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
+            switch (localName) {
+                case "row": {
+                    String r = attributes.getValue("r");
+                    int previousRowNum = rowNum;
+                    rowNum = r == null ? rowNum + 1 : Integer.parseInt(r) - 1;
+                    skipRows(previousRowNum, lastRowNum >= 0 ? Math.min(rowNum, lastRowNum + 1) : rowNum);
+                    if (lastRowNum >= 0 && rowNum > lastRowNum) {
+                        finishTitle();
+                        throw new StopParsingException();
+                    }
+                    row.reset(rowNum);
+                    column = -1;
+                    break;
+                }
+                case "c": {
+                    String r = attributes.getValue("r");
+                    column = r == null ? column + 1 : new CellReference(r).getCol();
+                    cellType = attributes.getValue("t");
+                    cellStyle = attributes.getValue("s");
+                    hasFormula = false;
+                    hasValue = false;
+                    text.setLength(0);
+                    break;
+                }
+                case "f": {
+                    hasFormula = true;
+                    break;
+                }
+                case "v":
+                case "t": {
+                    hasValue = true;
+                    inText = true;
+                    break;
+                }
+                default:
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (inText) {
+                text.append(ch, start, length);
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) throws SAXException {
+            switch (localName) {
+                case "v":
+                case "t": {
+                    inText = false;
+                    break;
+                }
+                case "c": {
+                    row.put(column, cellValue());
+                    break;
+                }
+                case "row": {
+                    endRow();
+                    break;
+                }
+                case "sheetData": {
+                    finishTitle();
+                    if (lastRowNum >= 0) {
+                        skipRows(rowNum, lastRowNum + 1);
+                    }
+                    break;
+                }
+                default:
+            }
+        }
+
+        /**
+         * 单元格值，与{@link WorkBookReader}一致只处理字符串与数字
+         */
+        private Object cellValue() {
+            if (hasFormula || !hasValue) {
+                return null;
+            }
+            String value = text.toString();
+            if (cellType == null || "n".equals(cellType)) {
+                double number = Double.parseDouble(value);
+                if (cellStyle != null && isDateFormatted(Integer.parseInt(cellStyle), number)) {
+                    return DateUtil.getJavaDate(number, date1904);
+                }
+                return number;
+            }
+            switch (cellType) {
+                case "s":
+                    return sharedStrings.getEntryAt(Integer.parseInt(value));
+                case "inlineStr":
+                    return value;
+                default:
+                    return null;
+            }
+        }
+
+        private boolean isDateFormatted(int styleIndex, double number) {
+            XSSFCellStyle style = styles.getStyleAt(styleIndex);
+            return style != null && DateUtil.isValidExcelDate(number)
+                    && DateUtil.isADateFormat(style.getDataFormat(), style.getDataFormatString());
+        }
+
+        private void endRow() throws SAXException {
+            if (rowNum < titleRowNum) {
+                return;
+            }
+            if (rowNum == titleRowNum) {
+                Map<Integer, String> titles = new LinkedHashMap<>();
+                for (int i = 0; i < row.size(); i++) {
+                    int index = row.getColumn(i);
+                    Object title = row.getValue(index);
+                    titles.put(index, title == null ? "" : title.toString());
+                }
+                mapper.title(titles);
+                titled = true;
+                return;
+            }
+            finishTitle();
+            if (cellStopFunction != null && cellStopFunction.stop(toStopRow())) {
+                throw new StopParsingException();
+            }
+            try {
+                handler.handle(rowNum, mapper.map(row));
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new WorkBookReadException("excel解析失败" + e.getMessage(), e);
+            }
+            count++;
+        }
+
+        /**
+         * sheet中不存在的数据行(from,to)，与{@link WorkBookReader#readAsMap}一致以null判断是否停止
+         *
+         * @param from 上一个存在的行号(不包含)
+         * @param to   下一个存在的行号(不包含)
+         */
+        private void skipRows(int from, int to) throws SAXException {
+            if (cellStopFunction == null) {
+                return;
+            }
+            for (int i = Math.max(from, titleRowNum) + 1; i < to; i++) {
+                finishTitle();
+                if (cellStopFunction.stop(null)) {
+                    throw new StopParsingException();
+                }
+            }
+        }
+
+        /**
+         * 标题行不存在时以空标题解析
+         */
+        private void finishTitle() {
+            if (!titled) {
+                mapper.title(new LinkedHashMap<>());
+                titled = true;
+            }
+        }
+
+        /**
+         * 将当前行写入临时sheet，供{@link ExcelReadInfo.CellStopFunction}判断
+         */
+        private XSSFRow toStopRow() {
+            if (stopSheet == null) {
+                XSSFWorkbook workbook = new XSSFWorkbook();
+                // 与原文件日期系统一致，日期单元格的数值不变
+                workbook.getCTWorkbook().getWorkbookPr().setDate1904(date1904);
+                stopSheet = workbook.createSheet();
+                stopDateStyle = workbook.createCellStyle();
+                stopDateStyle.setDataFormat(workbook.createDataFormat().getFormat("yyyy-MM-dd HH:mm:ss"));
+            }
+            XSSFRow stopRow = stopSheet.getRow(0);
+            if (stopRow != null) {
+                stopSheet.removeRow(stopRow);
+            }
+            stopRow = stopSheet.createRow(0);
+            for (int i = 0; i < row.size(); i++) {
+                int index = row.getColumn(i);
+                Object value = row.getValue(index);
+                XSSFCell cell = stopRow.createCell(index);
+                if (value instanceof String) {
+                    cell.setCellValue((String) value);
+                } else if (value instanceof Double) {
+                    cell.setCellValue((Double) value);
+                } else if (value instanceof Date) {
+                    cell.setCellValue((Date) value);
+                    cell.setCellStyle(stopDateStyle);
+                }
+            }
+            return stopRow;
+        }
+    }
+
+}
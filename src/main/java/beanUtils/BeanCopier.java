@@ -0,0 +1,102 @@
+package beanUtils;
+
+import reflect.PropertyAccessors;
+import reflect.ReflectException;
+import reflect.ReflectUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 对象属性复制器
+ * 每对(源类型,目标类型)只在首次使用时生成一次复制计划：源类型可读、目标类型可写且类型兼容的属性，
+ * 各自持有绑定好的read/write句柄，复制时按数组顺序逐个读写，不再查找方法
+ *
+ * @param <S> 源类型
+ * @param <T> 目标类型
+ * @author cheney
+ * @date 2020-01-30
+ */
+public final class BeanCopier<S, T> {
+
+    // k:源类型,v:(k:目标类型,v:复制器)
+    private final static ClassValue<ConcurrentHashMap<Class<?>, BeanCopier<?, ?>>> CACHE =
+            new ClassValue<ConcurrentHashMap<Class<?>, BeanCopier<?, ?>>>() {
+                @Override
+                protected ConcurrentHashMap<Class<?>, BeanCopier<?, ?>> computeValue(Class<?> type) {
+                    return new ConcurrentHashMap<>();
+                }
+            };
+
+    // 源类型的read访问器
+    private final PropertyAccessors.PropertyAccessor[] readers;
+
+    // 目标类型的write访问器，与readers一一对应
+    private final PropertyAccessors.PropertyAccessor[] writers;
+
+    // 目标属性是否为基本类型，为基本类型时跳过null值
+    private final boolean[] primitives;
+
+    private BeanCopier(Class<S> sourceClass, Class<T> targetClass) {
+        PropertyAccessors targetAccessors = PropertyAccessors.of(targetClass);
+        List<PropertyAccessors.PropertyAccessor> readers = new ArrayList<>();
+        List<PropertyAccessors.PropertyAccessor> writers = new ArrayList<>();
+        for (PropertyAccessors.PropertyAccessor reader : PropertyAccessors.of(sourceClass).getAccessors()) {
+            PropertyAccessors.PropertyAccessor writer = targetAccessors.get(reader.getName());
+            if (reader.isReadable() && writer != null && writer.isWritable()
+                    && ReflectUtils.wrap(writer.getWriteMethod().getParameterTypes()[0]).isAssignableFrom(ReflectUtils.wrap(reader.getType()))) {
+                readers.add(reader);
+                writers.add(writer);
+            }
+        }
+        this.readers = readers.toArray(new PropertyAccessors.PropertyAccessor[0]);
+        this.writers = writers.toArray(new PropertyAccessors.PropertyAccessor[0]);
+        this.primitives = new boolean[this.writers.length];
+        for (int i = 0; i < primitives.length; i++) {
+            primitives[i] = this.writers[i].getWriteMethod().getParameterTypes()[0].isPrimitive();
+        }
+    }
+
+    /**
+     * 获取复制器，每对类型只生成一次
+     *
+     * @param sourceClass 源类型
+     * @param targetClass 目标类型
+     * @return 复制器
+     */
+    @SuppressWarnings("unchecked")
+    public static <S, T> BeanCopier<S, T> create(Class<S> sourceClass, Class<T> targetClass) {
+        return (BeanCopier<S, T>) CACHE.get(sourceClass).computeIfAbsent(targetClass,
+                key -> new BeanCopier<>(sourceClass, targetClass));
+    }
+
+    /**
+     * 复制属性
+     *
+     * @param source 源对象
+     * @param target 目标对象
+     * @return 目标对象
+     */
+    public T copy(S source, T target) {
+        try {
+            for (int i = 0; i < readers.length; i++) {
+                Object value = readers[i].read(source);
+                if (value != null || !primitives[i]) {
+                    writers[i].write(target, value);
+                }
+            }
+        } catch (ReflectException e) {
+            throw new BeanReflectException("复制属性错误", e);
+        }
+        return target;
+    }
+
+    /**
+     * 复制的属性个数
+     */
+    public int size() {
+        return readers.length;
+    }
+
+}
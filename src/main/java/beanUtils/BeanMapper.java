@@ -0,0 +1,152 @@
+package beanUtils;
+
+import reflect.PropertyAccessors;
+import reflect.ReflectException;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 对象与Map的转换器
+ * 每个类型只在首次使用时生成一次转换计划：可读属性与可写属性的访问器数组及无参构造函数句柄，
+ * 转换时按数组顺序读写，不再查找方法
+ *
+ * @param <T> 对象类型
+ * @author cheney
+ * @date 2020-01-30
+ */
+public final class BeanMapper<T> {
+
+    private final static ClassValue<BeanMapper<?>> CACHE = new ClassValue<BeanMapper<?>>() {
+        @Override
+        protected BeanMapper<?> computeValue(Class<?> type) {
+            return new BeanMapper<>(type);
+        }
+    };
+
+    private final Class<T> beanClass;
+
+    // 可读属性
+    private final PropertyAccessors.PropertyAccessor[] readers;
+
+    // 可写属性
+    private final PropertyAccessors.PropertyAccessor[] writers;
+
+    // 可写属性是否为基本类型，为基本类型时跳过null值
+    private final boolean[] primitives;
+
+    // 无参构造函数，类型为()Object，没有无参构造函数时为null
+    private final MethodHandle constructor;
+
+    private BeanMapper(Class<T> beanClass) {
+        this.beanClass = beanClass;
+        List<PropertyAccessors.PropertyAccessor> readers = new ArrayList<>();
+        List<PropertyAccessors.PropertyAccessor> writers = new ArrayList<>();
+        for (PropertyAccessors.PropertyAccessor accessor : PropertyAccessors.of(beanClass).getAccessors()) {
+            if (accessor.isReadable()) {
+                readers.add(accessor);
+            }
+            if (accessor.isWritable()) {
+                writers.add(accessor);
+            }
+        }
+        this.readers = readers.toArray(new PropertyAccessors.PropertyAccessor[0]);
+        this.writers = writers.toArray(new PropertyAccessors.PropertyAccessor[0]);
+        this.primitives = new boolean[this.writers.length];
+        for (int i = 0; i < primitives.length; i++) {
+            primitives[i] = this.writers[i].getWriteMethod().getParameterTypes()[0].isPrimitive();
+        }
+        MethodHandle constructor;
+        try {
+            Constructor<T> declaredConstructor = beanClass.getDeclaredConstructor();
+            declaredConstructor.setAccessible(true);
+            constructor = MethodHandles.lookup().unreflectConstructor(declaredConstructor)
+                    .asType(MethodType.methodType(Object.class));
+        } catch (Exception e) {
+            constructor = null;
+        }
+        this.constructor = constructor;
+    }
+
+    /**
+     * 获取类型的转换器，每个类型只生成一次
+     *
+     * @param beanClass 对象类型
+     * @return 转换器
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> BeanMapper<T> of(Class<T> beanClass) {
+        return (BeanMapper<T>) CACHE.get(beanClass);
+    }
+
+    /**
+     * 对象转为Map
+     *
+     * @param bean 对象
+     * @return k:属性名,v:属性值
+     */
+    public Map<String, Object> toMap(T bean) {
+        Map<String, Object> map = new HashMap<>((int) (readers.length / 0.75f) + 1);
+        try {
+            for (PropertyAccessors.PropertyAccessor reader : readers) {
+                map.put(reader.getName(), reader.read(bean));
+            }
+        } catch (ReflectException e) {
+            throw new BeanReflectException("对象转换为Map错误", e);
+        }
+        return map;
+    }
+
+    /**
+     * Map转为新的对象，需要无参构造函数
+     *
+     * @param map k:属性名,v:属性值
+     * @return 对象
+     */
+    @SuppressWarnings("unchecked")
+    public T fromMap(Map<String, ?> map) {
+        if (constructor == null) {
+            throw new BeanReflectException("can not find no-arg constructor in " + beanClass.getName());
+        }
+        T bean;
+        try {
+            bean = (T) (Object) constructor.invokeExact();
+        } catch (Throwable e) {
+            throw new BeanReflectException("反射构造对象错误", e);
+        }
+        return fromMap(map, bean);
+    }
+
+    /**
+     * 将Map中的值写入对象，Map中不存在的属性不变，基本类型属性的null值忽略
+     *
+     * @param map  k:属性名,v:属性值
+     * @param bean 对象
+     * @return 对象
+     */
+    public T fromMap(Map<String, ?> map, T bean) {
+        try {
+            for (int i = 0; i < writers.length; i++) {
+                PropertyAccessors.PropertyAccessor writer = writers[i];
+                Object value = map.get(writer.getName());
+                if (value != null || (!primitives[i] && map.containsKey(writer.getName()))) {
+                    writer.write(bean, value);
+                }
+            }
+        } catch (ReflectException e) {
+            throw new BeanReflectException("Map转换为对象错误", e);
+        }
+        return bean;
+    }
+
+    public Class<T> getBeanClass() {
+        return beanClass;
+    }
+
+}
@@ -2,12 +2,14 @@ package beanUtils;
 
 import org.apache.commons.lang.StringUtils;
 import org.apache.log4j.Logger;
+import reflect.PropertyAccessors;
 
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 反射工具类
@@ -27,9 +29,14 @@ public class BeanUtils {
 
     /**
      * 反射获取字段值
+     * 优先使用类的属性访问表{@link PropertyAccessors}
      */
     public static Object readValue(Object obj, String property) {
         try {
+            PropertyAccessors.PropertyAccessor accessor = PropertyAccessors.of(obj.getClass()).get(property);
+            if (accessor != null && accessor.isReadable()) {
+                return accessor.read(obj);
+            }
             return getReadMethod(obj.getClass(), property).invoke(obj);
         } catch (Exception e) {
             LOGGER.error(e);
@@ -79,6 +86,40 @@ public class BeanUtils {
         }
     }
 
+    /**
+     * 复制同名且类型兼容的属性，复制计划按(源类型,目标类型)缓存{@link BeanCopier}
+     *
+     * @param source 源对象
+     * @param target 目标对象
+     * @return 目标对象
+     */
+    @SuppressWarnings("unchecked")
+    public static <S, T> T copy(S source, T target) {
+        return BeanCopier.create((Class<S>) source.getClass(), (Class<T>) target.getClass()).copy(source, target);
+    }
+
+    /**
+     * 对象转为Map，转换计划按类型缓存{@link BeanMapper}
+     *
+     * @param bean 对象
+     * @return k:属性名,v:属性值
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Map<String, Object> toMap(T bean) {
+        return BeanMapper.of((Class<T>) bean.getClass()).toMap(bean);
+    }
+
+    /**
+     * Map转为对象，转换计划按类型缓存{@link BeanMapper}
+     *
+     * @param map       k:属性名,v:属性值
+     * @param beanClass 对象类型
+     * @return 对象
+     */
+    public static <T> T fromMap(Map<String, ?> map, Class<T> beanClass) {
+        return BeanMapper.of(beanClass).fromMap(map);
+    }
+
     public static List<Field> getAllFields(Class clazz, Class stop) {
         ArrayList<Field> fieldList = new ArrayList<>();
         for (; clazz != stop; clazz = clazz.getSuperclass()) {
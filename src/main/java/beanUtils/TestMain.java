@@ -0,0 +1,35 @@
+package beanUtils;
+
+import org.junit.Assert;
+import org.junit.Test;
+import reflect.pojo.Admin;
+
+import java.util.Map;
+
+/**
+ * 测试类
+ *
+ * @author cheney
+ * @date 2020-01-30
+ */
+public class TestMain {
+
+    @Test
+    public void testCopyAndMap() {
+        Admin admin = new Admin();
+        admin.setUsername("cheney");
+        admin.setAdminNumber("001");
+        admin.setTest2("test");
+        Admin copy = BeanUtils.copy(admin, new Admin());
+        Assert.assertEquals("cheney", copy.getUsername());
+        Assert.assertEquals("test", copy.getTest2());
+        Map<String, Object> map = BeanUtils.toMap(admin);
+        Assert.assertEquals("001", map.get("adminNumber"));
+        Assert.assertEquals("cheney", map.get("username"));
+        map.put("adminNumber", "002");
+        Admin fromMap = BeanUtils.fromMap(map, Admin.class);
+        Assert.assertEquals("002", fromMap.getAdminNumber());
+        Assert.assertEquals("test", fromMap.getTest2());
+    }
+
+}
@@ -0,0 +1,166 @@
+package expression.cheney;
+
+import expression.cheney.node.ArithmeticNode;
+import expression.cheney.node.ExpressionNode;
+
+/**
+ * 四则运算表达式解析器
+ * 将只含数字、变量、+ - * / %、一元负号与括号的运算表达式解析为{@link ArithmeticNode.Operand}运算树，
+ * 含其他运算符、字符串、布尔值、nil或嵌套属性访问(a.b)时返回null，由Aviator执行
+ * <p>
+ * expr := term (('+'|'-') term)*
+ * term := unary (('*'|'/'|'%') unary)*
+ * unary := '-' unary | primary
+ * primary := number | variable | '(' expr ')'
+ *
+ * @author cheney
+ * @date 2020-01-28
+ */
+class ArithmeticParser {
+
+    private final String expression;
+
+    /**
+     * 组合段落中函数结果对应的变量名
+     */
+    private final String[] envKeys;
+
+    /**
+     * 组合段落中的函数节点
+     */
+    private final ExpressionNode[] functions;
+
+    /**
+     * 函数结果在临时变量层中的起始槽位
+     */
+    private final int slotOffset;
+
+    private int position;
+
+    private ArithmeticParser(String expression, String[] envKeys, ExpressionNode[] functions, int slotOffset) {
+        this.expression = expression;
+        this.envKeys = envKeys;
+        this.functions = functions;
+        this.slotOffset = slotOffset;
+    }
+
+    /**
+     * 解析运算表达式
+     *
+     * @param expression 运算表达式
+     * @param envKeys    组合段落中函数结果对应的变量名
+     * @param functions  组合段落中的函数节点
+     * @param slotOffset 函数结果在临时变量层中的起始槽位
+     * @return 运算树，不是四则运算表达式时返回null
+     */
+    static ArithmeticNode.Operand parse(String expression, String[] envKeys, ExpressionNode[] functions, int slotOffset) {
+        ArithmeticParser parser = new ArithmeticParser(expression, envKeys, functions, slotOffset);
+        ArithmeticNode.Operand operand = parser.parseExpr();
+        if (operand == null || parser.skipSpace() < expression.length()) {
+            return null;
+        }
+        return operand;
+    }
+
+    private ArithmeticNode.Operand parseExpr() {
+        ArithmeticNode.Operand left = parseTerm();
+        while (left != null) {
+            char c = peek();
+            if (c != '+' && c != '-') {
+                return left;
+            }
+            position++;
+            ArithmeticNode.Operand right = parseTerm();
+            left = right == null ? null : ArithmeticNode.binary(c, left, right);
+        }
+        return null;
+    }
+
+    private ArithmeticNode.Operand parseTerm() {
+        ArithmeticNode.Operand left = parseUnary();
+        while (left != null) {
+            char c = peek();
+            if (c != '*' && c != '/' && c != '%') {
+                return left;
+            }
+            position++;
+            ArithmeticNode.Operand right = parseUnary();
+            left = right == null ? null : ArithmeticNode.binary(c, left, right);
+        }
+        return null;
+    }
+
+    private ArithmeticNode.Operand parseUnary() {
+        if (peek() == '-') {
+            position++;
+            ArithmeticNode.Operand operand = parseUnary();
+            return operand == null ? null : ArithmeticNode.negate(operand);
+        }
+        return parsePrimary();
+    }
+
+    private ArithmeticNode.Operand parsePrimary() {
+        char c = peek();
+        if (c == '(') {
+            position++;
+            ArithmeticNode.Operand operand = parseExpr();
+            if (operand == null || peek() != ')') {
+                return null;
+            }
+            position++;
+            return operand;
+        }
+        int start = position;
+        while (position < expression.length() && isNamePart(expression.charAt(position))) {
+            position++;
+        }
+        if (start == position) {
+            return null;
+        }
+        String name = expression.substring(start, position);
+        if (Character.isDigit(name.charAt(0))) {
+            if (!CharConstants.NUMBER.matcher(name).matches()) {
+                return null;
+            }
+            if (name.indexOf('.') >= 0) {
+                return ArithmeticNode.constant(Double.parseDouble(name));
+            }
+            try {
+                return ArithmeticNode.constant(Long.parseLong(name));
+            } catch (NumberFormatException e) {
+                // 超出long范围，由Aviator执行
+                return null;
+            }
+        }
+        if (name.indexOf('.') >= 0 || "nil".equals(name) || "null".equals(name)
+                || "true".equals(name) || "false".equals(name)) {
+            return null;
+        }
+        for (int i = 0; i < envKeys.length; i++) {
+            if (envKeys[i].equals(name)) {
+                return ArithmeticNode.function(functions[i], slotOffset + i);
+            }
+        }
+        return ArithmeticNode.variable(name);
+    }
+
+    /**
+     * 跳过空白并返回当前字符，结束时返回0
+     */
+    private char peek() {
+        skipSpace();
+        return position < expression.length() ? expression.charAt(position) : 0;
+    }
+
+    private int skipSpace() {
+        while (position < expression.length() && Character.isWhitespace(expression.charAt(position))) {
+            position++;
+        }
+        return position;
+    }
+
+    private static boolean isNamePart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '.' || c == '$';
+    }
+
+}
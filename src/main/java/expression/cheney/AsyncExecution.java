@@ -0,0 +1,165 @@
+package expression.cheney;
+
+import expression.cheney.node.ConstantNode;
+import expression.cheney.node.ExpressionNode;
+import expression.cheney.node.FunctionNode;
+import expression.cheney.node.VariableNode;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 异步执行
+ * 支持返回{@link CompletableFuture}的函数：同步执行时等待其结果，异步执行时以回调组合不阻塞线程；
+ * 异步执行时同一函数的多个非常量、非变量参数提交到线程池并发求值，参数全部完成后再执行函数。
+ * 默认线程池为{@link ForkJoinPool#commonPool()}，函数包含阻塞IO时应通过{@link #setDefaultExecutor(Executor)}配置专用线程池
+ *
+ * @author cheney
+ * @date 2020-01-27
+ */
+public class AsyncExecution {
+
+    private static volatile Executor defaultExecutor = ForkJoinPool.commonPool();
+
+    /**
+     * 超时计时线程
+     */
+    private final static ScheduledThreadPoolExecutor TIMER = new ScheduledThreadPoolExecutor(1, runnable -> {
+        Thread thread = new Thread(runnable, "expression-async-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        TIMER.setRemoveOnCancelPolicy(true);
+    }
+
+    private AsyncExecution() {
+    }
+
+    public static Executor getDefaultExecutor() {
+        return defaultExecutor;
+    }
+
+    /**
+     * 设置默认的参数求值线程池
+     *
+     * @param executor 线程池
+     */
+    public static void setDefaultExecutor(Executor executor) {
+        if (executor == null) {
+            throw new NullPointerException();
+        }
+        defaultExecutor = executor;
+    }
+
+    /**
+     * 同步等待异步函数的结果
+     *
+     * @param future 异步函数返回值
+     * @return 结果
+     */
+    public static Object join(Object future) {
+        try {
+            return ((CompletableFuture<?>) future).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for async function", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof RuntimeException ? (RuntimeException) cause : new CompletionException(cause);
+        }
+    }
+
+    /**
+     * 超时未完成时以{@link TimeoutException}结束
+     *
+     * @param future  结果
+     * @param timeout 超时时间
+     * @param unit    时间单位
+     * @return 带超时的结果
+     */
+    static CompletableFuture<Object> withTimeout(CompletableFuture<Object> future, long timeout, TimeUnit unit) {
+        if (future.isDone()) {
+            return future;
+        }
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        ScheduledFuture<?> timer = TIMER.schedule(() -> result.completeExceptionally(
+                new TimeoutException("expression not completed in " + timeout + " " + unit)), timeout, unit);
+        future.whenComplete((value, error) -> {
+            timer.cancel(false);
+            if (error != null) {
+                result.completeExceptionally(error);
+            } else {
+                result.complete(value);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * 异步执行节点
+     * 参数无延迟求值的函数逐个参数异步求值，其余节点在当前线程同步执行
+     *
+     * @param node     节点
+     * @param context  执行上下文
+     * @param executor 参数求值线程池
+     * @return 结果
+     */
+    static CompletableFuture<Object> evaluate(ExpressionNode node, EvaluationContext context, Executor executor) {
+        try {
+            if (!(node instanceof FunctionNode) || ((FunctionNode) node).hasLazyArgs()) {
+                return CompletableFuture.completedFuture(node.execute(context));
+            }
+            FunctionNode function = (FunctionNode) node;
+            ExpressionNode[] args = function.getArgs();
+            boolean fanOut = countConcurrent(args) > 1;
+            CompletableFuture<?>[] values = new CompletableFuture<?>[args.length];
+            for (int i = 0; i < args.length; i++) {
+                ExpressionNode arg = args[i];
+                if (fanOut && isConcurrent(arg)) {
+                    values[i] = CompletableFuture.supplyAsync(() -> evaluate(arg, context, executor), executor)
+                            .thenCompose(value -> value);
+                } else {
+                    values[i] = evaluate(arg, context, executor);
+                }
+            }
+            return CompletableFuture.allOf(values).thenCompose(ignore -> {
+                Object[] argValues = new Object[values.length];
+                for (int i = 0; i < values.length; i++) {
+                    argValues[i] = values[i].join();
+                }
+                return function.invokeAsync(argValues);
+            });
+        } catch (RuntimeException e) {
+            CompletableFuture<Object> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+    }
+
+    /**
+     * 常量与变量直接求值，其余参数可并发求值
+     */
+    private static boolean isConcurrent(ExpressionNode node) {
+        return !(node instanceof ConstantNode) && !(node instanceof VariableNode);
+    }
+
+    private static int countConcurrent(ExpressionNode[] nodes) {
+        int count = 0;
+        for (ExpressionNode node : nodes) {
+            if (isConcurrent(node)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+}
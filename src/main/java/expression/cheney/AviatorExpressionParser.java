@@ -26,7 +26,12 @@ public class AviatorExpressionParser implements ExpressionParser {
     /**
      * AviatorExpressionParser单例
      */
-    private static AviatorExpressionParser AviatorExpressionParser;
+    private static volatile AviatorExpressionParser AviatorExpressionParser;
+
+    /**
+     * 按long/double计算的AviatorExpressionParser单例
+     */
+    private static volatile AviatorExpressionParser doubleAviatorExpressionParser;
 
     private AviatorExpressionParser() {
         aviatorEvaluator = AviatorEvaluator.getInstance();
@@ -35,8 +40,16 @@ public class AviatorExpressionParser implements ExpressionParser {
         init();
     }
 
+    private AviatorExpressionParser(AviatorEvaluatorInstance aviatorEvaluator) {
+        this.aviatorEvaluator = aviatorEvaluator;
+        init();
+    }
+
     @Override
     public ExpressionExecutor parseExpression(String expression) {
+        if (ExpressionProfiler.isEnabled()) {
+            ExpressionProfiler.recordAviatorCompile();
+        }
         return new AviatorExpressionExecutor(aviatorEvaluator.compile(expression, false));
     }
 
@@ -47,6 +60,13 @@ public class AviatorExpressionParser implements ExpressionParser {
      * @return 表达式解析结果
      */
     public ExpressionExecutor parseExpressionWithCache(String expression) {
+        if (ExpressionProfiler.isEnabled()) {
+            if (aviatorEvaluator.isExpressionCached(expression)) {
+                ExpressionProfiler.recordAviatorCacheHit();
+            } else {
+                ExpressionProfiler.recordAviatorCompile();
+            }
+        }
         return new AviatorExpressionExecutor(aviatorEvaluator.compile(expression, true));
     }
 
@@ -66,6 +86,27 @@ public class AviatorExpressionParser implements ExpressionParser {
         return AviatorExpressionParser;
     }
 
+    /**
+     * 获取指定数值运算模式的AviatorExpressionParser实例
+     * {@link NumericMode#DOUBLE}模式使用独立的Aviator实例，数字字面量按long/double解析
+     *
+     * @param numericMode 数值运算模式
+     * @return 实例
+     */
+    public static AviatorExpressionParser getInstance(NumericMode numericMode) {
+        if (numericMode != NumericMode.DOUBLE) {
+            return getInstance();
+        }
+        if (doubleAviatorExpressionParser == null) {
+            synchronized (AviatorExpressionParser.class) {
+                if (doubleAviatorExpressionParser == null) {
+                    doubleAviatorExpressionParser = new AviatorExpressionParser(AviatorEvaluator.newInstance());
+                }
+            }
+        }
+        return doubleAviatorExpressionParser;
+    }
+
     /**
      * 初始化方法
      */
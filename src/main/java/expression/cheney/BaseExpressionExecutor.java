@@ -1,19 +1,20 @@
 package expression.cheney;
 
-import org.apache.commons.collections4.CollectionUtils;
-import org.apache.commons.lang.ArrayUtils;
+import expression.cheney.node.CombinationNode;
+import expression.cheney.node.ExpressionNode;
+import expression.cheney.node.FunctionNode;
 
-import java.math.BigDecimal;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Collections;
 import java.util.Map;
-
-import static expression.cheney.BaseExpressionParser.Arg.CONSTANT;
-import static expression.cheney.BaseExpressionParser.Arg.FUNC;
-import static expression.cheney.CharConstants.*;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 表达式执行器
+ * 持有表达式解析结果以及由{@link ExpressionCompiler}编译后的节点树
  *
  * @author cheney
  * @date 2019-12-06
@@ -35,107 +36,144 @@ public abstract class BaseExpressionExecutor implements ExpressionExecutor {
      */
     protected BaseExpressionParser.ParseResult parseResult;
 
-    BaseExpressionExecutor(String express, BaseExpressionParser.ParseResult parseResult) {
+    /**
+     * 编译结果
+     */
+    protected CompiledExpression compiled;
+
+    /**
+     * 编译后的节点树根节点
+     */
+    protected ExpressionNode root;
+
+    BaseExpressionExecutor(String express, BaseExpressionParser.ParseResult parseResult, CompiledExpression compiled) {
         this.express = express;
         this.parseResult = parseResult;
+        this.compiled = compiled;
+        this.root = compiled.getRoot();
     }
 
     /**
-     * 从env中提取arg对应的参数
+     * 执行表达式
+     * 每次执行创建独立的执行上下文，env只读，同一执行器可被多线程共享并发执行
      *
-     * @param args 表达式参数
-     * @param env  实际参数
-     * @return 参数数组
+     * @param env 参数
+     * @return 结果
      */
-    @SuppressWarnings("unchecked")
-    protected Object[] loadArgs(List<BaseExpressionParser.Arg> args, Map<String, Object> env) {
-        return CollectionUtils.isEmpty(args) ? null : args.stream().map(arg -> {
-            Object value = arg.getValue();
-            short type = arg.getType();
-            if (value == null) {
-                return null;
-            } else if (type == CONSTANT) {
-                return value;
-            } else if (type == FUNC) {
-                BaseExpressionParser.ParseResult parseResult = (BaseExpressionParser.ParseResult) value;
-                return executeFunc(parseResult.getFuncName(), parseResult.getArgs(), env);
-            } else if (type == BaseExpressionParser.Arg.COMBINATION) {
-                // 函数嵌套运算
-                ArrayList<BaseExpressionParser.Arg> funcArgs = (ArrayList<BaseExpressionParser.Arg>) value;
-                String operatorExpression = "";
-                int newEnvIndex = 0;
-                for (BaseExpressionParser.Arg funcArg : funcArgs) {
-                    Object argValue = funcArg.getValue();
-                    short funcArgType = funcArg.getType();
-                    if (funcArgType == FUNC) {
-                        BaseExpressionParser.ParseResult parseResult = (BaseExpressionParser.ParseResult) argValue;
-                        Object expression = executeFunc(parseResult.getFuncName(), parseResult.getArgs(), env);
-                        // 函数执行结果作为env的值，缓存最终形成的表达式解析结果
-                        String newEnvKey = NEW_ENV_KEY + newEnvIndex++;
-                        env.put(newEnvKey, expression);
-                        operatorExpression += newEnvKey;
-                    } else if (funcArgType == CONSTANT) {
-                        // 常量则加上'
-                        operatorExpression += APOSTROPHE_STRING + argValue + APOSTROPHE_STRING;
-                    } else {
-                        // 运算符或者原始类型，直接拼接
-                        operatorExpression += argValue;
-                    }
-                }
-                return executeOperation(operatorExpression, env, true);
-            } else {
-                String valueStr = (String) value;
-                Object envArg = env.get(valueStr);
-                if (envArg != null) {
-                    return envArg;
-                } else if (CONTAINS_OPERATOR_PATTERN.matcher(valueStr).find()) {
-                    // 结合Aviator,将含运算符的arg丢给Aviator执行
-                    return executeOperation(valueStr, env, true);
-                }
-                return castToBasic(valueStr);
-            }
-        }).toArray();
+    @Override
+    public Object execute(Map<String, Object> env) {
+        return execute(compiled.newContext(env));
     }
 
     /**
-     * 尝试将变量转换基本类型数据
+     * 在指定的执行上下文中执行表达式
      *
-     * @param valueStr 待转换的值
-     * @return 转换结果
+     * @param context 执行上下文
+     * @return 结果
      */
-    private static Object castToBasic(String valueStr) {
-        if (ArrayUtils.contains(NULL_VALUES, valueStr)) {
-            return null;
-        } else if ("false".equals(valueStr) || "true".equals(valueStr)) {
-            return Boolean.valueOf(valueStr);
-        } else if (NUMBER.matcher(valueStr).matches()) {
-            if (valueStr.contains(".")) {
-                return new BigDecimal(valueStr);
-            } else {
-                return Integer.valueOf(valueStr);
+    public abstract Object execute(EvaluationContext context);
+
+    /**
+     * 异步执行表达式
+     * 异步函数以回调组合，同一函数的多个函数/运算参数在线程池中并发求值，函数执行失败时以{@link ExpressionExecuteException}结束
+     *
+     * @param env      参数
+     * @param executor 参数求值线程池
+     * @param timeout  超时时间，超时后结果以{@link java.util.concurrent.TimeoutException}结束
+     * @param unit     时间单位
+     * @return 结果
+     */
+    @Override
+    public CompletableFuture<Object> executeAsync(Map<String, Object> env, Executor executor, long timeout, TimeUnit unit) {
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        AsyncExecution.evaluate(root, compiled.newContext(env), executor).whenComplete((value, error) -> {
+            if (error == null) {
+                result.complete(value);
+                return;
             }
-        }
-        return null;
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            result.completeExceptionally(new ExpressionExecuteException(express, cause));
+        });
+        return AsyncExecution.withTimeout(result, timeout, unit);
     }
 
     /**
-     * 执行运算表达式
+     * 创建增量执行的结果缓存
      *
-     * @param expression 运算表达式
-     * @param env        实际参数
-     * @param cache      是否使用缓存
-     * @return 表达式执行结果
+     * @return 空缓存
      */
-    protected abstract Object executeOperation(String expression, Map<String, Object> env, boolean cache);
+    public IncrementalCache newIncrementalCache() {
+        return new IncrementalCache(compiled);
+    }
 
     /**
-     * 提供额外的表达式执行方法
+     * 增量执行表达式
+     * 依赖的env变量均不在changedKeys中且结果已缓存的节点直接复用上一次的结果，只重新执行受影响的子树；
+     * 非{@link expression.cheney.func.Pure}函数及无法确定依赖的节点每次都重新执行
      *
-     * @param functionName 方法名
-     * @param args         参数
-     * @param env          变量
-     * @return 表达式执行结果
+     * @param env         参数
+     * @param cache       上一次执行的结果缓存，执行后更新
+     * @param changedKeys 与上一次执行相比发生变化的变量名，为null时视为全部变化
+     * @return 结果
+     */
+    public Object executeIncremental(Map<String, Object> env, IncrementalCache cache, Set<String> changedKeys) {
+        if (cache.getCompiled() != compiled) {
+            throw new IllegalArgumentException("incremental cache is not created by this executor");
+        }
+        if (changedKeys == null) {
+            cache.clear();
+        }
+        cache.resetEvaluatedCount();
+        EvaluationContext context = compiled.newContext(env);
+        try {
+            return evaluate(root, context, cache, changedKeys == null ? Collections.emptySet() : changedKeys);
+        } catch (RuntimeException e) {
+            // 执行失败时缓存可能只更新了一部分
+            cache.clear();
+            throw new ExpressionExecuteException(express, e);
+        }
+    }
+
+    /**
+     * 增量执行节点，参数无延迟求值的函数逐个参数增量执行，组合段落中的函数逐个增量执行，其余节点整体执行
      */
-    protected abstract Object executeFunc(String functionName, List<BaseExpressionParser.Arg> args, Map<String, Object> env);
+    private static Object evaluate(ExpressionNode node, EvaluationContext context, IncrementalCache cache, Set<String> changedKeys) {
+        Set<String> dependencies = node.getDependencies();
+        boolean reusable = dependencies != null;
+        if (reusable && cache.contains(node) && Collections.disjoint(dependencies, changedKeys)) {
+            return cache.get(node);
+        }
+        cache.incrementEvaluatedCount();
+        Object value;
+        if (node instanceof FunctionNode && !((FunctionNode) node).hasLazyArgs()) {
+            FunctionNode function = (FunctionNode) node;
+            ExpressionNode[] args = function.getArgs();
+            Object[] values = new Object[args.length];
+            for (int i = 0; i < args.length; i++) {
+                values[i] = evaluate(args[i], context, cache, changedKeys);
+            }
+            value = function.invoke(values);
+        } else if (node instanceof CombinationNode) {
+            value = ((CombinationNode) node).execute(context, function -> evaluate(function, context, cache, changedKeys));
+        } else {
+            value = node.execute(context);
+        }
+        if (reusable) {
+            cache.put(node, value);
+        }
+        return value;
+    }
+
+    public String getExpress() {
+        return express;
+    }
+
+    public ExpressionNode getRoot() {
+        return root;
+    }
+
+    public CompiledExpression getCompiled() {
+        return compiled;
+    }
 
 }
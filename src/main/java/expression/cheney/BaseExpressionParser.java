@@ -34,16 +34,38 @@ import static expression.cheney.func.InternalFunction.OUT_PUT_FUNC_NAME;
  * 1.6 新增解析前置方法{@link #parse(java.lang.String)},用于处理'null'表达式等。
  * 1.7 表达式测试接口
  * 1.8 放弃1.5逻辑，改为最外层调用方法{@link #parse(java.lang.String)}时所有非空非原始类型表达式拼接{@link InternalFunction#output(java.lang.Object)}
+ * 1.9 新增单次线性扫描的词法分析器{@link ExpressionTokenizer}与递归下降解析器{@link SinglePassParser}，输出相同的解析结果，
+ *     默认使用，无法解析的表达式仍由原基于substring/正则的解析{@link #parseLegacy(java.lang.String)}处理
  *
- * @version 1.8
+ * @version 1.9
  * @author cheney
  * @date 2019-12-07
  */
 public abstract class BaseExpressionParser implements ExpressionParser {
 
+    /**
+     * 是否使用单次扫描解析器
+     * 1.9新增
+     */
+    private volatile boolean singlePassParse = true;
+
     @Override
     public abstract ExpressionExecutor parseExpression(String expression);
 
+    /**
+     * 切换解析实现，false时使用1.8及之前的解析逻辑
+     * 1.9新增
+     *
+     * @param singlePassParse 是否使用单次扫描解析器
+     */
+    public void setSinglePassParse(boolean singlePassParse) {
+        this.singlePassParse = singlePassParse;
+    }
+
+    public boolean isSinglePassParse() {
+        return singlePassParse;
+    }
+
     /**
      * 表达式解析结果
      * 例如: ifs(a>b,c) 则
@@ -95,7 +117,7 @@ public abstract class BaseExpressionParser implements ExpressionParser {
     @NoArgsConstructor
     @AllArgsConstructor
     static class Arg {
-        private final static List<Arg> EMPTY_ARG = new ArrayList<>(0);
+        final static List<Arg> EMPTY_ARG = new ArrayList<>(0);
         // 值
         private Object value;
         // 类型：0:常量,1:函数,2:运算,3:组合段落
@@ -152,6 +174,8 @@ public abstract class BaseExpressionParser implements ExpressionParser {
      * 1.6新增
      * 1.8更新：
      * 判断表达式不包含函数，则为原始类型ParseResult.ORIGIN
+     * 1.9更新：
+     * 默认使用{@link SinglePassParser}解析，无法解析时使用{@link #parseLegacy(java.lang.String)}
      *
      * @param expression 表达式
      * @return 解析结果 ParseResult实体
@@ -163,7 +187,25 @@ public abstract class BaseExpressionParser implements ExpressionParser {
         if (ArrayUtils.contains(NULL_VALUES, expression)) {
             // 返回NULL
             return ParseResult.NULL_RESULT;
-        } else if (!CONTAINS_FUNC.matcher(expression).find()) {
+        }
+        if (singlePassParse) {
+            ParseResult parseResult = SinglePassParser.parse(expression);
+            if (parseResult != null) {
+                return parseResult;
+            }
+        }
+        return parseLegacy(expression);
+    }
+
+    /**
+     * 1.8及之前的解析逻辑，基于substring与正则递归解析
+     * 1.9新增
+     *
+     * @param expression 已去除首尾空格的非空表达式
+     * @return 解析结果 ParseResult实体
+     */
+    protected ParseResult parseLegacy(String expression) {
+        if (!CONTAINS_FUNC.matcher(expression).find()) {
             // 不包含函数，则为原始类型
             return ParseResult.origin(expression);
         }
@@ -0,0 +1,84 @@
+package expression.cheney;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntFunction;
+
+/**
+ * 批量执行
+ * 行数较少时在当前线程顺序执行，超过阈值时按行区间二分拆分到fork/join线程池并行执行，
+ * 各行结果按下标写入结果数组，输出顺序与输入一致
+ *
+ * @author cheney
+ * @date 2020-01-21
+ */
+class BatchExecution {
+
+    /**
+     * 并行执行的最小行数
+     */
+    final static int PARALLEL_THRESHOLD = 1024;
+
+    /**
+     * 单个任务顺序执行的行数
+     */
+    private final static int CHUNK_SIZE = 256;
+
+    private BatchExecution() {
+    }
+
+    /**
+     * 执行所有行
+     *
+     * @param rowCount 行数
+     * @param row      单行执行方法，参数为行下标
+     * @return 按行下标排列的结果
+     */
+    static List<Object> run(int rowCount, IntFunction<Object> row) {
+        Object[] results = new Object[rowCount];
+        if (rowCount < PARALLEL_THRESHOLD) {
+            for (int i = 0; i < rowCount; i++) {
+                results[i] = row.apply(i);
+            }
+        } else {
+            ForkJoinPool.commonPool().invoke(new RowTask(row, results, 0, rowCount));
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * 行区间任务
+     */
+    private static class RowTask extends RecursiveAction {
+
+        private final IntFunction<Object> row;
+
+        private final Object[] results;
+
+        private final int from;
+
+        private final int to;
+
+        RowTask(IntFunction<Object> row, Object[] results, int from, int to) {
+            this.row = row;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= CHUNK_SIZE) {
+                for (int i = from; i < to; i++) {
+                    results[i] = row.apply(i);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new RowTask(row, results, from, middle), new RowTask(row, results, middle, to));
+        }
+    }
+
+}
@@ -0,0 +1,75 @@
+package expression.cheney;
+
+import java.util.AbstractMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 列式数据的单行只读视图
+ * 变量按列名读取对应列数组中当前行的值，不复制整行数据
+ *
+ * @author cheney
+ * @date 2020-01-21
+ */
+class ColumnarEnv extends AbstractMap<String, Object> {
+
+    /**
+     * 列数据，key为变量名
+     */
+    private final Map<String, Object[]> columns;
+
+    /**
+     * 行下标
+     */
+    private final int row;
+
+    ColumnarEnv(Map<String, Object[]> columns, int row) {
+        this.columns = columns;
+        this.row = row;
+    }
+
+    /**
+     * 校验各列行数一致并返回行数
+     *
+     * @param columns 列数据
+     * @return 行数
+     */
+    static int rowCount(Map<String, Object[]> columns) {
+        int rowCount = -1;
+        for (Map.Entry<String, Object[]> entry : columns.entrySet()) {
+            int length = entry.getValue() == null ? 0 : entry.getValue().length;
+            if (rowCount < 0) {
+                rowCount = length;
+            } else if (rowCount != length) {
+                throw new IllegalArgumentException("column " + entry.getKey() + " has " + length + " rows, expect " + rowCount);
+            }
+        }
+        return Math.max(rowCount, 0);
+    }
+
+    @Override
+    public Object get(Object key) {
+        Object[] column = columns.get(key);
+        return column == null ? null : column[row];
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return columns.containsKey(key);
+    }
+
+    @Override
+    public int size() {
+        return columns.size();
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        Set<Entry<String, Object>> entries = new HashSet<>();
+        for (Map.Entry<String, Object[]> entry : columns.entrySet()) {
+            entries.add(new SimpleImmutableEntry<>(entry.getKey(), entry.getValue()[row]));
+        }
+        return entries;
+    }
+}
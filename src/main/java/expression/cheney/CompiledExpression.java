@@ -0,0 +1,69 @@
+package expression.cheney;
+
+import expression.cheney.node.ExpressionNode;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 表达式编译结果
+ * 节点树、单次执行所需的临时变量槽位数、编译期折叠为常量的节点数以及引用的函数名
+ *
+ * @author cheney
+ * @date 2020-01-14
+ */
+public class CompiledExpression {
+
+    /**
+     * 节点树根节点
+     */
+    private final ExpressionNode root;
+
+    /**
+     * 临时变量槽位数
+     */
+    private final int scratchSize;
+
+    /**
+     * 编译期折叠为常量的节点数
+     */
+    private final int foldedNodeCount;
+
+    /**
+     * 引用的函数名，包括折叠为常量的函数
+     */
+    private final Set<String> functionNames;
+
+    CompiledExpression(ExpressionNode root, int scratchSize, int foldedNodeCount, Set<String> functionNames) {
+        this.root = root;
+        this.scratchSize = scratchSize;
+        this.foldedNodeCount = foldedNodeCount;
+        this.functionNames = functionNames;
+    }
+
+    /**
+     * 创建单次执行上下文
+     *
+     * @param env 只读的基础env
+     * @return 执行上下文
+     */
+    public EvaluationContext newContext(Map<String, Object> env) {
+        return new EvaluationContext(env, scratchSize);
+    }
+
+    public ExpressionNode getRoot() {
+        return root;
+    }
+
+    public int getScratchSize() {
+        return scratchSize;
+    }
+
+    public int getFoldedNodeCount() {
+        return foldedNodeCount;
+    }
+
+    public Set<String> getFunctionNames() {
+        return functionNames;
+    }
+}
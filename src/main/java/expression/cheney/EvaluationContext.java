@@ -0,0 +1,50 @@
+package expression.cheney;
+
+import java.util.Map;
+
+/**
+ * 表达式单次执行上下文
+ * 由只读的基础env与单次执行的临时变量层组成：基础env在执行过程中不会被写入，
+ * 执行产生的中间结果(如组合段落中函数的执行结果)写入临时变量层，
+ * 因此同一个执行器可以在多个线程中并发执行，并共享同一个只读env而无需复制
+ *
+ * @author cheney
+ * @date 2020-01-14
+ */
+public class EvaluationContext {
+
+    private final static Object[] EMPTY_SCRATCH = new Object[0];
+
+    /**
+     * 基础env，只读
+     */
+    private final Map<String, Object> env;
+
+    /**
+     * 临时变量层，槽位在编译期分配
+     */
+    private final Object[] scratch;
+
+    public EvaluationContext(Map<String, Object> env, int scratchSize) {
+        this.env = env;
+        this.scratch = scratchSize == 0 ? EMPTY_SCRATCH : new Object[scratchSize];
+    }
+
+    /**
+     * 读取基础env中的变量
+     *
+     * @param name 变量名
+     * @return 变量值，env为空时返回null
+     */
+    public Object get(String name) {
+        return env == null ? null : env.get(name);
+    }
+
+    public Map<String, Object> getEnv() {
+        return env;
+    }
+
+    public Object[] getScratch() {
+        return scratch;
+    }
+}
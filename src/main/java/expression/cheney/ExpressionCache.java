@@ -0,0 +1,204 @@
+package expression.cheney;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * 表达式执行器缓存
+ * 按表达式hash分段加锁，每段为按访问顺序排列的LinkedHashMap，超出容量时淘汰最久未使用的表达式；
+ * 未命中时在锁外解析表达式，避免解析耗时阻塞同段的其他表达式
+ *
+ * @author cheney
+ * @date 2020-01-12
+ */
+public class ExpressionCache {
+
+    /**
+     * 分段数
+     */
+    private final static int SEGMENT_COUNT = 16;
+
+    private final Segment[] segments;
+
+    private final int capacity;
+
+    private final LongAdder hitCount = new LongAdder();
+
+    private final LongAdder missCount = new LongAdder();
+
+    private final LongAdder evictionCount = new LongAdder();
+
+    public ExpressionCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+        int segmentCount = Math.min(SEGMENT_COUNT, capacity);
+        int segmentCapacity = (capacity + segmentCount - 1) / segmentCount;
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(segmentCapacity);
+        }
+    }
+
+    /**
+     * 获取缓存的执行器，未命中时通过loader解析并放入缓存
+     *
+     * @param expression 表达式
+     * @param loader     解析方法
+     * @return 表达式执行器
+     */
+    public ExpressionExecutor get(String expression, Function<String, ExpressionExecutor> loader) {
+        Segment segment = segmentFor(expression);
+        ExpressionExecutor executor;
+        synchronized (segment) {
+            executor = segment.get(expression);
+        }
+        if (executor != null) {
+            hitCount.increment();
+            return executor;
+        }
+        missCount.increment();
+        ExpressionExecutor loaded = loader.apply(expression);
+        synchronized (segment) {
+            // 并发解析同一表达式时以先放入的为准
+            executor = segment.putIfAbsent(expression, loaded);
+        }
+        return executor != null ? executor : loaded;
+    }
+
+    /**
+     * 放入缓存，已存在时覆盖
+     *
+     * @param expression 表达式
+     * @param executor   表达式执行器
+     */
+    public void put(String expression, ExpressionExecutor executor) {
+        Segment segment = segmentFor(expression);
+        synchronized (segment) {
+            segment.put(expression, executor);
+        }
+    }
+
+    /**
+     * 移除缓存
+     *
+     * @param expression 表达式
+     */
+    public void remove(String expression) {
+        Segment segment = segmentFor(expression);
+        synchronized (segment) {
+            segment.remove(expression);
+        }
+    }
+
+    /**
+     * 移除满足条件的缓存
+     *
+     * @param filter 条件
+     * @return 移除的个数
+     */
+    public int removeIf(Predicate<ExpressionExecutor> filter) {
+        int removed = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                Iterator<ExpressionExecutor> iterator = segment.values().iterator();
+                while (iterator.hasNext()) {
+                    if (filter.test(iterator.next())) {
+                        iterator.remove();
+                        removed++;
+                    }
+                }
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * 清空缓存，统计计数不清零
+     */
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    /**
+     * 当前缓存的表达式个数
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * 获取缓存统计快照
+     */
+    public CacheStats stats() {
+        return new CacheStats(hitCount.sum(), missCount.sum(), evictionCount.sum(), size(), capacity);
+    }
+
+    private Segment segmentFor(String expression) {
+        int hash = expression.hashCode();
+        hash ^= hash >>> 16;
+        return segments[(hash & 0x7fffffff) % segments.length];
+    }
+
+    /**
+     * 缓存分段，超出容量时淘汰最久未访问的表达式
+     */
+    private class Segment extends LinkedHashMap<String, ExpressionExecutor> {
+
+        private final int segmentCapacity;
+
+        Segment(int segmentCapacity) {
+            super(16, 0.75f, true);
+            this.segmentCapacity = segmentCapacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ExpressionExecutor> eldest) {
+            if (size() > segmentCapacity) {
+                evictionCount.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * 缓存统计快照
+     */
+    @Data
+    @AllArgsConstructor
+    public static class CacheStats {
+        private long hitCount;
+        private long missCount;
+        private long evictionCount;
+        private int size;
+        private int capacity;
+
+        /**
+         * 命中率
+         */
+        public double hitRate() {
+            long requestCount = hitCount + missCount;
+            return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+        }
+    }
+
+}
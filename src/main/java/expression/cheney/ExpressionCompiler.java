@@ -0,0 +1,536 @@
+package expression.cheney;
+
+import expression.cheney.func.Deterministic;
+import expression.cheney.func.Pure;
+import expression.cheney.node.*;
+import org.apache.commons.lang.ArrayUtils;
+import reflect.methodHolder.MethodHolder;
+import reflect.methodHolder.MethodHolderFactory;
+import reflect.methodHolder.MethodInvoker;
+import reflect.methodHolder.exception.NoSuchMethodException;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import static expression.cheney.BaseExpressionParser.Arg.*;
+import static expression.cheney.CharConstants.*;
+
+/**
+ * 表达式编译器
+ * 将{@link BaseExpressionParser.ParseResult}/{@link BaseExpressionParser.Arg}解析结果编译为不可变的{@link ExpressionNode}节点树，
+ * 函数所属类、参数类型与不定参数适配在编译期一次确定，执行时不再按方法名查找或遍历函数类；
+ * 参数全部为常量的{@link Pure}函数、不含变量的运算表达式与组合段落在编译期执行并折叠为常量;
+ * 共同编译时{@link Pure}与{@link Deterministic}函数按结构合并
+ *
+ * @author cheney
+ * @date 2020-01-10
+ */
+class ExpressionCompiler {
+
+    /**
+     * 方法反射工厂
+     */
+    private MethodHolderFactory methodHolderFactory;
+
+    /**
+     * 反射的类
+     */
+    private Set<Class<?>> functionClasses;
+
+    /**
+     * 数值运算模式
+     */
+    private volatile NumericMode numericMode = NumericMode.DECIMAL;
+
+    ExpressionCompiler(MethodHolderFactory methodHolderFactory, Set<Class<?>> functionClasses) {
+        this.methodHolderFactory = methodHolderFactory;
+        this.functionClasses = functionClasses;
+    }
+
+    /**
+     * 编译函数类型的解析结果
+     *
+     * @param parseResult 解析结果
+     * @return 编译结果
+     */
+    CompiledExpression compile(BaseExpressionParser.ParseResult parseResult) {
+        Compilation compilation = new Compilation();
+        ExpressionNode root = compileFunc(parseResult, compilation);
+        return new CompiledExpression(root, compilation.slotCount, compilation.foldedCount,
+                Collections.unmodifiableSet(compilation.functionNames));
+    }
+
+    /**
+     * 共同编译一组表达式，结构相同的纯函数调用与变量合并为同一节点
+     *
+     * @param expressions  表达式
+     * @param parseResults 表达式对应的解析结果
+     * @return 规则集
+     */
+    RuleSet compileRuleSet(List<String> expressions, List<BaseExpressionParser.ParseResult> parseResults) {
+        Compilation compilation = new Compilation();
+        compilation.shared = new HashMap<>();
+        ExpressionNode[] roots = new ExpressionNode[parseResults.size()];
+        for (int i = 0; i < roots.length; i++) {
+            BaseExpressionParser.ParseResult parseResult = parseResults.get(i);
+            short type = parseResult.getType();
+            if (type == BaseExpressionParser.ParseResult.FUNC) {
+                roots[i] = compileFunc(parseResult, compilation);
+            } else if (type == BaseExpressionParser.ParseResult.NULL_VALUE) {
+                roots[i] = ConstantNode.NULL;
+            } else {
+                roots[i] = compileOrigin(parseResult.getFuncName()).getRoot();
+            }
+        }
+        return new RuleSet(expressions.toArray(new String[0]), roots, compilation.slotCount, compilation.sharedCount);
+    }
+
+    /**
+     * 编译函数
+     *
+     * @param parseResult 函数解析结果
+     * @param compilation 本次编译状态
+     * @return 函数节点
+     */
+    private ExpressionNode compileFunc(BaseExpressionParser.ParseResult parseResult, Compilation compilation) {
+        compilation.functionNames.add(parseResult.getFuncName());
+        String sharedKey = null;
+        if (compilation.shared != null) {
+            sharedKey = keyOf(parseResult);
+            ExpressionNode shared = compilation.shared.get(sharedKey);
+            if (shared != null) {
+                compilation.sharedCount++;
+                return shared;
+            }
+        }
+        String functionName = parseResult.getFuncName();
+        List<BaseExpressionParser.Arg> args = parseResult.getArgs();
+        int argCount = args == null ? 0 : args.size();
+        ExpressionNode[] argNodes = new ExpressionNode[argCount];
+        for (int i = 0; i < argCount; i++) {
+            argNodes[i] = compileArg(args.get(i), compilation);
+        }
+        MethodInvoker invoker = resolveFunction(functionName, argCount);
+        // 重载函数按所有候选方法共同的注解、参数类型与返回类型确定
+        Method[] candidates = invoker.getCandidates();
+        boolean pure = allAnnotated(candidates, Pure.class);
+        boolean async = candidates.length > 0;
+        for (Method candidate : candidates) {
+            async &= CompletableFuture.class.isAssignableFrom(candidate.getReturnType());
+        }
+        FunctionNode function = new FunctionNode(functionName, invoker, argNodes, lazyArgs(candidates, argCount), pure, async);
+        if (!pure) {
+            // 确定性函数只在单次执行内复用，不折叠
+            boolean deterministic = candidates.length > 0;
+            for (Method candidate : candidates) {
+                deterministic &= candidate.isAnnotationPresent(Pure.class) || candidate.isAnnotationPresent(Deterministic.class);
+            }
+            return deterministic ? share(sharedKey, function, compilation) : function;
+        }
+        if (allConstant(argNodes)) {
+            return share(sharedKey, fold(function, compilation), compilation);
+        }
+        return share(sharedKey, function, compilation);
+    }
+
+    /**
+     * 根据方法参数类型确定延迟求值的参数，参数类型为{@link Supplier}时延迟求值
+     * 不定参数(最后一个参数为array)按元素类型判断，重载函数只在所有候选方法该位置都为{@link Supplier}时延迟求值
+     *
+     * @param candidates 函数的候选方法
+     * @param argCount   参数个数
+     * @return 延迟求值标识，无延迟参数时返回null
+     */
+    private static boolean[] lazyArgs(Method[] candidates, int argCount) {
+        if (candidates.length == 0 || argCount == 0) {
+            return null;
+        }
+        boolean[] lazyArgs = new boolean[argCount];
+        boolean hasLazy = false;
+        for (int i = 0; i < argCount; i++) {
+            boolean lazy = true;
+            for (Method candidate : candidates) {
+                lazy &= Supplier.class == parameterType(candidate, i);
+            }
+            lazyArgs[i] = lazy;
+            hasLazy |= lazy;
+        }
+        return hasLazy ? lazyArgs : null;
+    }
+
+    /**
+     * 第index个参数对应的参数类型，不定参数按元素类型，超出参数个数时为null
+     */
+    private static Class<?> parameterType(Method method, int index) {
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        int parameterCount = parameterTypes.length;
+        if (parameterCount > 0 && parameterTypes[parameterCount - 1].isArray() && index >= parameterCount - 1) {
+            return parameterTypes[parameterCount - 1].getComponentType();
+        }
+        return index < parameterCount ? parameterTypes[index] : null;
+    }
+
+    private static boolean allAnnotated(Method[] methods, Class<? extends Annotation> annotation) {
+        if (methods.length == 0) {
+            return false;
+        }
+        for (Method method : methods) {
+            if (!method.isAnnotationPresent(annotation)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 编译参数，与参数类型一一对应
+     *
+     * @param arg         表达式参数
+     * @param compilation 本次编译状态
+     * @return 参数节点
+     */
+    @SuppressWarnings("unchecked")
+    private ExpressionNode compileArg(BaseExpressionParser.Arg arg, Compilation compilation) {
+        Object value = arg.getValue();
+        short type = arg.getType();
+        if (value == null) {
+            return ConstantNode.NULL;
+        } else if (type == CONSTANT) {
+            return new ConstantNode(value);
+        } else if (type == FUNC) {
+            return compileFunc((BaseExpressionParser.ParseResult) value, compilation);
+        } else if (type == COMBINATION) {
+            // 函数嵌套运算，编译期拼接并编译运算表达式，函数结果以固定的变量名代入
+            List<BaseExpressionParser.Arg> funcArgs = (List<BaseExpressionParser.Arg>) value;
+            StringBuilder operation = new StringBuilder();
+            List<String> envKeys = new ArrayList<>();
+            List<ExpressionNode> functions = new ArrayList<>();
+            for (BaseExpressionParser.Arg funcArg : funcArgs) {
+                Object argValue = funcArg.getValue();
+                short funcArgType = funcArg.getType();
+                if (funcArgType == FUNC) {
+                    String newEnvKey = (BaseExpressionExecutor.NEW_ENV_KEY + envKeys.size()).intern();
+                    envKeys.add(newEnvKey);
+                    functions.add(compileFunc((BaseExpressionParser.ParseResult) argValue, compilation));
+                    operation.append(newEnvKey);
+                } else if (funcArgType == CONSTANT) {
+                    // 常量则加上'
+                    operation.append(APOSTROPHE_STRING).append(argValue).append(APOSTROPHE_STRING);
+                } else {
+                    // 运算符或者原始类型，直接拼接
+                    operation.append(argValue);
+                }
+            }
+            String operationExpression = operation.toString();
+            // 为函数结果分配临时变量槽位，嵌套的组合段落各自占用不同槽位
+            int slotOffset = compilation.slotCount;
+            compilation.slotCount += functions.size();
+            ExpressionExecutor executor = compileOperation(operationExpression);
+            String[] keys = envKeys.toArray(new String[0]);
+            ExpressionNode[] functionNodes = functions.toArray(new ExpressionNode[0]);
+            ExpressionNode combination = compileArithmetic(operationExpression, executor, keys, functionNodes, slotOffset);
+            if (combination == null) {
+                combination = new CombinationNode(operationExpression, executor, keys, functionNodes, slotOffset);
+            }
+            if (allConstant(functionNodes) && onlyReads(executor, envKeys)) {
+                return fold(combination, compilation);
+            }
+            return combination;
+        } else {
+            String valueStr = (String) value;
+            if (!CONTAINS_OPERATOR_PATTERN.matcher(valueStr).find()) {
+                // 数字、布尔、null字面量直接编译为常量，其余为变量
+                return isLiteral(valueStr) ? new ConstantNode(castToBasic(valueStr)) :
+                        shareVariable(new VariableNode(valueStr, ConstantNode.NULL), compilation);
+            }
+            // 结合Aviator,含运算符的arg在env中取不到值时丢给Aviator执行
+            ExpressionExecutor executor = compileOperation(valueStr);
+            ExpressionNode operation = compileArithmetic(valueStr, executor, new String[0], new ExpressionNode[0], 0);
+            VariableNode variable = new VariableNode(valueStr, operation != null ? operation : new OperationNode(valueStr, executor));
+            if (onlyReads(executor, Collections.emptyList())) {
+                // 不含变量的运算表达式
+                return fold(variable.getFallback(), compilation);
+            }
+            return shareVariable(variable, compilation);
+        }
+    }
+
+    /**
+     * 在函数类中查找函数并绑定调用器
+     * 找不到函数时不在编译期报错，执行时抛出{@link NoSuchMethodException}
+     *
+     * @param functionName 函数名
+     * @param argCount     参数个数
+     * @return 函数调用器
+     */
+    private MethodInvoker resolveFunction(String functionName, int argCount) {
+        for (Class<?> clazz : functionClasses) {
+            MethodHolder methodHolder = methodHolderFactory.getMethodHolder(clazz);
+            if (methodHolder.hasMethod(functionName)) {
+                return methodHolder.getInvoker(functionName, argCount);
+            }
+        }
+        return args -> {
+            throw new NoSuchMethodException(functionName);
+        };
+    }
+
+    /**
+     * 函数绑定的方法签名，用于判断函数集合变化后绑定结果是否一致
+     *
+     * @param functionName 函数名
+     * @param argCount     参数个数
+     * @return 方法签名，重载函数为所有候选方法的签名，找不到函数时为空字符串
+     */
+    String signature(String functionName, int argCount) {
+        Method[] candidates = resolveFunction(functionName, argCount).getCandidates();
+        if (candidates.length == 0) {
+            return "";
+        }
+        return candidates.length == 1 ? candidates[0].toString() : Arrays.toString(candidates);
+    }
+
+    /**
+     * 编译不含函数的原始类型表达式
+     *
+     * @param expression 表达式
+     * @return 编译结果
+     */
+    CompiledExpression compileOrigin(String expression) {
+        ExpressionExecutor executor = compileOperation(expression);
+        ExpressionNode root = compileArithmetic(expression, executor, new String[0], new ExpressionNode[0], 0);
+        return new CompiledExpression(root != null ? root : new OperationNode(expression, executor), 0, 0,
+                Collections.emptySet());
+    }
+
+    /**
+     * 编译运算表达式，相同的运算表达式共享Aviator的编译结果
+     *
+     * @param operation 运算表达式
+     * @return 编译结果
+     */
+    private ExpressionExecutor compileOperation(String operation) {
+        return AviatorExpressionParser.getInstance(numericMode).parseExpressionWithCache(operation);
+    }
+
+    /**
+     * {@link NumericMode#DOUBLE}模式下将四则运算表达式编译为基本类型运算节点
+     *
+     * @param operation  运算表达式
+     * @param executor   Aviator编译结果，操作数不是数字时执行
+     * @param envKeys    组合段落中函数结果对应的变量名
+     * @param functions  组合段落中的函数节点
+     * @param slotOffset 函数结果在临时变量层中的起始槽位
+     * @return 运算节点，非DOUBLE模式或不是四则运算表达式时返回null
+     */
+    private ExpressionNode compileArithmetic(String operation, ExpressionExecutor executor, String[] envKeys,
+                                             ExpressionNode[] functions, int slotOffset) {
+        if (numericMode != NumericMode.DOUBLE) {
+            return null;
+        }
+        ArithmeticNode.Operand operand = ArithmeticParser.parse(operation, envKeys, functions, slotOffset);
+        return operand == null ? null : new ArithmeticNode(operation, operand, executor, envKeys, functions, slotOffset);
+    }
+
+    /**
+     * 编译期执行节点并折叠为常量，执行失败时不折叠，保留执行期的异常行为；
+     * 常量在每次执行及各线程间共享，结果不是不可变类型时不折叠
+     *
+     * @param node        参数全部为常量的节点
+     * @param compilation 本次编译状态
+     * @return 常量节点或原节点
+     */
+    private static ExpressionNode fold(ExpressionNode node, Compilation compilation) {
+        try {
+            Object value = node.execute(new EvaluationContext(null, compilation.slotCount));
+            if (!isImmutable(value)) {
+                return node;
+            }
+            compilation.foldedCount++;
+            return new ConstantNode(value);
+        } catch (RuntimeException e) {
+            return node;
+        }
+    }
+
+    /**
+     * 是否为可折叠的不可变值
+     */
+    private static boolean isImmutable(Object value) {
+        return value == null || value instanceof String || value instanceof Boolean || value instanceof Character
+                || value instanceof Integer || value instanceof Long || value instanceof Double || value instanceof Float
+                || value instanceof Short || value instanceof Byte || value instanceof BigDecimal || value instanceof BigInteger;
+    }
+
+    /**
+     * 共同编译时以结构作为key复用节点，常量直接复用，其余节点包装为{@link MemoNode}在单次执行内只执行一次
+     *
+     * @param key         结构key，非共同编译时为null
+     * @param node        节点
+     * @param compilation 本次编译状态
+     * @return 复用的节点
+     */
+    private static ExpressionNode share(String key, ExpressionNode node, Compilation compilation) {
+        if (key == null) {
+            return node;
+        }
+        ExpressionNode shared = node instanceof ConstantNode ? node : new MemoNode(node, compilation.slotCount++);
+        compilation.shared.put(key, shared);
+        return shared;
+    }
+
+    private static ExpressionNode shareVariable(VariableNode variable, Compilation compilation) {
+        if (compilation.shared == null) {
+            return variable;
+        }
+        // 变量名不会与函数调用的key('函数名('开头)冲突
+        String key = variable.getName();
+        ExpressionNode shared = compilation.shared.get(key);
+        if (shared != null) {
+            compilation.sharedCount++;
+            return shared;
+        }
+        return share(key, variable, compilation);
+    }
+
+    /**
+     * 函数调用的结构key，函数名与参数结构一致时key相同
+     */
+    private static String keyOf(BaseExpressionParser.ParseResult parseResult) {
+        StringBuilder key = new StringBuilder();
+        appendKey(parseResult, key);
+        return key.toString();
+    }
+
+    private static void appendKey(BaseExpressionParser.ParseResult parseResult, StringBuilder key) {
+        key.append(parseResult.getFuncName()).append(BRACKETS_LEFT_CHAR);
+        List<BaseExpressionParser.Arg> args = parseResult.getArgs();
+        if (args != null) {
+            for (BaseExpressionParser.Arg arg : args) {
+                appendKey(arg, key);
+                key.append(COMMA_CHAR);
+            }
+        }
+        key.append(BRACKETS_RIGHT_CHAR);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void appendKey(BaseExpressionParser.Arg arg, StringBuilder key) {
+        Object value = arg.getValue();
+        short type = arg.getType();
+        if (value == null) {
+            key.append("null");
+        } else if (type == CONSTANT) {
+            key.append(APOSTROPHE_CHAR).append(value).append(APOSTROPHE_CHAR);
+        } else if (type == FUNC) {
+            appendKey((BaseExpressionParser.ParseResult) value, key);
+        } else if (type == COMBINATION) {
+            key.append('{');
+            for (BaseExpressionParser.Arg part : (List<BaseExpressionParser.Arg>) value) {
+                appendKey(part, key);
+                key.append(' ');
+            }
+            key.append('}');
+        } else {
+            key.append(value);
+        }
+    }
+
+    private static boolean allConstant(ExpressionNode[] nodes) {
+        for (ExpressionNode node : nodes) {
+            if (!(node instanceof ConstantNode)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 运算表达式是否只读取指定的变量
+     *
+     * @param executor  Aviator编译结果
+     * @param variables 变量名
+     * @return 无法获取变量时返回false
+     */
+    private static boolean onlyReads(ExpressionExecutor executor, Collection<String> variables) {
+        if (!(executor instanceof AviatorExpressionExecutor)) {
+            return false;
+        }
+        return variables.containsAll(((AviatorExpressionExecutor) executor).getExpression().getVariableNames());
+    }
+
+    /**
+     * 是否为数字、布尔、null字面量
+     */
+    private static boolean isLiteral(String valueStr) {
+        return ArrayUtils.contains(NULL_VALUES, valueStr) || "false".equals(valueStr) || "true".equals(valueStr)
+                || NUMBER.matcher(valueStr).matches();
+    }
+
+    /**
+     * 尝试将变量转换基本类型数据
+     *
+     * @param valueStr 待转换的值
+     * @return 转换结果
+     */
+    private Object castToBasic(String valueStr) {
+        if (ArrayUtils.contains(NULL_VALUES, valueStr)) {
+            return null;
+        } else if ("false".equals(valueStr) || "true".equals(valueStr)) {
+            return Boolean.valueOf(valueStr);
+        } else if (NUMBER.matcher(valueStr).matches()) {
+            if (numericMode == NumericMode.DOUBLE) {
+                if (valueStr.contains(".")) {
+                    return Double.valueOf(valueStr);
+                }
+                // 能放入int的字面量为Integer，与int/Integer参数的函数匹配
+                long value = Long.parseLong(valueStr);
+                return value == (int) value ? (Object) (int) value : (Object) value;
+            }
+            if (valueStr.contains(".")) {
+                return new BigDecimal(valueStr);
+            } else {
+                return Integer.valueOf(valueStr);
+            }
+        }
+        return null;
+    }
+
+    NumericMode getNumericMode() {
+        return numericMode;
+    }
+
+    void setNumericMode(NumericMode numericMode) {
+        this.numericMode = numericMode;
+    }
+
+    /**
+     * 单次编译的状态
+     */
+    private static class Compilation {
+        // 已分配的临时变量槽位数
+        private int slotCount;
+        // 折叠为常量的节点数
+        private int foldedCount;
+        // 共同编译时按结构key复用的节点，单个表达式编译时为null
+        private Map<String, ExpressionNode> shared;
+        // 复用节点的次数
+        private int sharedCount;
+        // 引用的函数名
+        private Set<String> functionNames = new HashSet<>();
+    }
+
+}
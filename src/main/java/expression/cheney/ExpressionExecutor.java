@@ -1,6 +1,12 @@
 package expression.cheney;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 表达式执行器
@@ -18,4 +24,53 @@ public interface ExpressionExecutor {
      */
     Object execute(Map<String, Object> env);
 
+    /**
+     * 异步执行表达式，在默认线程池{@link AsyncExecution#getDefaultExecutor()}中执行
+     *
+     * @param env     参数
+     * @param timeout 超时时间，超时后结果以{@link java.util.concurrent.TimeoutException}结束
+     * @param unit    时间单位
+     * @return 结果
+     */
+    default CompletableFuture<Object> executeAsync(Map<String, Object> env, long timeout, TimeUnit unit) {
+        return executeAsync(env, AsyncExecution.getDefaultExecutor(), timeout, unit);
+    }
+
+    /**
+     * 异步执行表达式
+     *
+     * @param env      参数
+     * @param executor 执行线程池
+     * @param timeout  超时时间，超时后结果以{@link java.util.concurrent.TimeoutException}结束
+     * @param unit     时间单位
+     * @return 结果
+     */
+    default CompletableFuture<Object> executeAsync(Map<String, Object> env, Executor executor, long timeout, TimeUnit unit) {
+        return AsyncExecution.withTimeout(CompletableFuture.supplyAsync(() -> execute(env), executor), timeout, unit);
+    }
+
+    /**
+     * 批量执行表达式
+     * 同一执行器的编译结果在各行间复用，行数超过{@link BatchExecution#PARALLEL_THRESHOLD}时拆分到fork/join线程池并行执行，
+     * 因此各行env在执行期间不能被修改
+     *
+     * @param envs 每行的参数
+     * @return 结果，顺序与envs一致
+     */
+    default List<Object> executeBatch(List<Map<String, Object>> envs) {
+        List<Map<String, Object>> rows = envs instanceof RandomAccess ? envs : new ArrayList<>(envs);
+        return BatchExecution.run(rows.size(), row -> execute(rows.get(row)));
+    }
+
+    /**
+     * 按列批量执行表达式
+     * 各列数组长度必须一致，第i行的变量取各列数组的第i个元素
+     *
+     * @param columns 列数据，key为变量名
+     * @return 结果，顺序与列数组下标一致
+     */
+    default List<Object> executeBatch(Map<String, Object[]> columns) {
+        return BatchExecution.run(ColumnarEnv.rowCount(columns), row -> execute(new ColumnarEnv(columns, row)));
+    }
+
 }
@@ -8,6 +8,11 @@ package expression.cheney;
  */
 public class ExpressionParseException extends RuntimeException {
 
+    /**
+     * 出错位置，未知时为-1
+     */
+    private int position = -1;
+
     public ExpressionParseException() {
     }
 
@@ -15,4 +20,13 @@ public class ExpressionParseException extends RuntimeException {
         super(message);
     }
 
+    public ExpressionParseException(String message, int position) {
+        super(message + " (position " + position + ")");
+        this.position = position;
+    }
+
+    public int getPosition() {
+        return position;
+    }
+
 }
@@ -0,0 +1,263 @@
+package expression.cheney;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 表达式解析结果持久化
+ * 将表达式的解析树及其中函数绑定的方法签名写入紧凑的二进制文件，服务重启时以内存映射方式批量读取，
+ * 直接由解析树编译执行器而不再解析表达式文本，加快启动。
+ * <p>
+ * 文件格式(大端)：
+ * 1.文件头：magic(int) 版本(short) 函数集合hash(long) 表达式个数(int)
+ * 2.每个表达式：表达式文本(string) 解析树字节数(int) 解析树
+ * 3.解析树：类型(byte) 值，函数类型的值为函数，原始类型为 表达式(string)
+ * 4.函数：函数名(string) 方法签名(string) 参数个数(int) 参数...
+ * 5.参数：类型(byte) 值，常量与原始类型的值为string，函数类型为函数，组合段落为 个数(int) 参数...
+ * 6.string：UTF-8字节数(int，null为-1) 字节
+ * <p>
+ * 函数集合hash一致时直接使用解析树；不一致时逐个核对解析树中的方法签名，签名变化的表达式重新完整解析
+ *
+ * @author cheney
+ * @date 2020-01-26
+ */
+@Slf4j
+public class ExpressionPlanStore {
+
+    private final static int MAGIC = 0x43455850;
+
+    private final static short VERSION = 1;
+
+    private final static byte RESULT_FUNC = 1;
+    private final static byte RESULT_ORIGIN = 2;
+    private final static byte RESULT_NULL = 3;
+
+    private final ReflectExpressionParser parser;
+
+    public ExpressionPlanStore(ReflectExpressionParser parser) {
+        this.parser = parser;
+    }
+
+    /**
+     * 解析表达式并写入文件，解析失败的表达式跳过
+     *
+     * @param expressions 表达式
+     * @param file        文件
+     * @return 写入的表达式个数
+     * @throws IOException 写入异常
+     */
+    public int write(Collection<String> expressions, Path file) throws IOException {
+        List<String> written = new ArrayList<>(expressions.size());
+        List<byte[]> plans = new ArrayList<>(expressions.size());
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        for (String expression : expressions) {
+            BaseExpressionParser.ParseResult parseResult;
+            try {
+                parseResult = parser.parse(expression);
+            } catch (RuntimeException e) {
+                log.warn("表达式 {} 解析失败，不写入", expression, e);
+                continue;
+            }
+            buffer.reset();
+            DataOutputStream out = new DataOutputStream(buffer);
+            writeResult(parseResult, out);
+            out.flush();
+            written.add(expression);
+            plans.add(buffer.toByteArray());
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeLong(parser.functionSetHash());
+            out.writeInt(written.size());
+            for (int i = 0; i < written.size(); i++) {
+                writeString(written.get(i), out);
+                out.writeInt(plans.get(i).length);
+                out.write(plans.get(i));
+            }
+        }
+        return written.size();
+    }
+
+    /**
+     * 内存映射读取文件并构建执行器，构建的执行器同时放入解析器的缓存
+     *
+     * @param file 文件
+     * @return 表达式与执行器，顺序与写入时一致
+     * @throws IOException 读取异常或文件格式错误
+     */
+    public Map<String, ExpressionExecutor> load(Path file) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.remaining() < 18 || buffer.getInt() != MAGIC) {
+            throw new IOException(file + " is not an expression plan file");
+        }
+        short version = buffer.getShort();
+        if (version != VERSION) {
+            throw new IOException(file + " has unsupported version " + version);
+        }
+        boolean sameFunctionSet = buffer.getLong() == parser.functionSetHash();
+        int count = buffer.getInt();
+        Map<String, ExpressionExecutor> executors = new LinkedHashMap<>(count * 4 / 3 + 1);
+        int reparsed = 0;
+        for (int i = 0; i < count; i++) {
+            String expression = readString(buffer);
+            int length = buffer.getInt();
+            int end = buffer.position() + length;
+            ExpressionExecutor executor = null;
+            try {
+                SignatureCheck check = sameFunctionSet ? null : new SignatureCheck();
+                BaseExpressionParser.ParseResult parseResult = readResult(buffer, check);
+                if (check == null || check.matched) {
+                    executor = parser.buildExecutor(expression, parseResult);
+                }
+            } catch (RuntimeException e) {
+                log.warn("表达式 {} 解析树读取失败，重新解析", expression, e);
+            }
+            buffer.position(end);
+            if (executor == null) {
+                // 函数集合变化，重新完整解析
+                executor = parser.parseExpression(expression);
+                reparsed++;
+            }
+            parser.cacheExecutor(expression, executor);
+            executors.put(expression, executor);
+        }
+        log.info("读取表达式解析结果 {} 个，重新解析 {} 个", count, reparsed);
+        return executors;
+    }
+
+    private void writeResult(BaseExpressionParser.ParseResult parseResult, DataOutputStream out) throws IOException {
+        short type = parseResult.getType();
+        if (type == BaseExpressionParser.ParseResult.NULL_VALUE) {
+            out.writeByte(RESULT_NULL);
+        } else if (type == BaseExpressionParser.ParseResult.ORIGIN) {
+            out.writeByte(RESULT_ORIGIN);
+            writeString(parseResult.getFuncName(), out);
+        } else {
+            out.writeByte(RESULT_FUNC);
+            writeFunc(parseResult, out);
+        }
+    }
+
+    private void writeFunc(BaseExpressionParser.ParseResult parseResult, DataOutputStream out) throws IOException {
+        List<BaseExpressionParser.Arg> args = parseResult.getArgs();
+        int argCount = args == null ? 0 : args.size();
+        writeString(parseResult.getFuncName(), out);
+        writeString(parser.functionSignature(parseResult.getFuncName(), argCount), out);
+        out.writeInt(argCount);
+        for (int i = 0; i < argCount; i++) {
+            writeArg(args.get(i), out);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void writeArg(BaseExpressionParser.Arg arg, DataOutputStream out) throws IOException {
+        short type = arg.getType();
+        out.writeByte(type);
+        if (type == BaseExpressionParser.Arg.FUNC) {
+            writeFunc((BaseExpressionParser.ParseResult) arg.getValue(), out);
+        } else if (type == BaseExpressionParser.Arg.COMBINATION) {
+            List<BaseExpressionParser.Arg> parts = (List<BaseExpressionParser.Arg>) arg.getValue();
+            out.writeInt(parts.size());
+            for (BaseExpressionParser.Arg part : parts) {
+                writeArg(part, out);
+            }
+        } else {
+            writeString((String) arg.getValue(), out);
+        }
+    }
+
+    private BaseExpressionParser.ParseResult readResult(ByteBuffer buffer, SignatureCheck check) {
+        byte type = buffer.get();
+        if (type == RESULT_NULL) {
+            return BaseExpressionParser.ParseResult.NULL_RESULT;
+        } else if (type == RESULT_ORIGIN) {
+            return BaseExpressionParser.ParseResult.origin(readString(buffer));
+        } else if (type == RESULT_FUNC) {
+            return readFunc(buffer, check);
+        }
+        throw new IllegalStateException("unknown parse result type " + type);
+    }
+
+    private BaseExpressionParser.ParseResult readFunc(ByteBuffer buffer, SignatureCheck check) {
+        String funcName = readString(buffer);
+        String signature = readString(buffer);
+        int argCount = buffer.getInt();
+        if (check != null && check.matched && !signature.equals(parser.functionSignature(funcName, argCount))) {
+            check.matched = false;
+        }
+        if (argCount == 0) {
+            return BaseExpressionParser.ParseResult.func(funcName, BaseExpressionParser.Arg.EMPTY_ARG);
+        }
+        List<BaseExpressionParser.Arg> args = new ArrayList<>(argCount);
+        for (int i = 0; i < argCount; i++) {
+            args.add(readArg(buffer, check));
+        }
+        return BaseExpressionParser.ParseResult.func(funcName, args);
+    }
+
+    private BaseExpressionParser.Arg readArg(ByteBuffer buffer, SignatureCheck check) {
+        short type = buffer.get();
+        Object value;
+        if (type == BaseExpressionParser.Arg.FUNC) {
+            value = readFunc(buffer, check);
+        } else if (type == BaseExpressionParser.Arg.COMBINATION) {
+            int count = buffer.getInt();
+            List<BaseExpressionParser.Arg> parts = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                parts.add(readArg(buffer, check));
+            }
+            value = parts;
+        } else {
+            value = readString(buffer);
+        }
+        return new BaseExpressionParser.Arg(value, type);
+    }
+
+    private static void writeString(String value, DataOutputStream out) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 函数集合变化时核对解析树中各函数的方法签名
+     */
+    private static class SignatureCheck {
+        private boolean matched = true;
+    }
+
+}
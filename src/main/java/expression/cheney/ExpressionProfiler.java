@@ -0,0 +1,187 @@
+package expression.cheney;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 表达式执行性能统计
+ * 按函数名统计调用次数、累计耗时、参数求值耗时与p99耗时，按运算表达式统计Aviator执行耗时，
+ * 并统计Aviator编译次数与缓存命中次数。计数器为LongAdder与按2的幂分桶的耗时直方图，无锁；
+ * 关闭时(默认)各节点只读取一次volatile标识，不计时也不分配对象
+ *
+ * @author cheney
+ * @date 2020-01-24
+ */
+public class ExpressionProfiler {
+
+    /**
+     * 直方图桶数，第i个桶记录耗时在[2^(i-1), 2^i)纳秒的调用
+     */
+    private final static int BUCKET_COUNT = 64;
+
+    private static volatile boolean enabled;
+
+    private final static ConcurrentMap<String, Stats> FUNCTIONS = new ConcurrentHashMap<>();
+
+    private final static ConcurrentMap<String, Stats> OPERATIONS = new ConcurrentHashMap<>();
+
+    private final static LongAdder AVIATOR_COMPILE_COUNT = new LongAdder();
+
+    private final static LongAdder AVIATOR_CACHE_HIT_COUNT = new LongAdder();
+
+    private ExpressionProfiler() {
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 开启/关闭统计，关闭后已有的统计保留
+     *
+     * @param enabled 是否开启
+     */
+    public static void setEnabled(boolean enabled) {
+        ExpressionProfiler.enabled = enabled;
+    }
+
+    /**
+     * 记录一次函数调用
+     *
+     * @param functionName 函数名
+     * @param argNanos     参数求值耗时
+     * @param totalNanos   总耗时(包含参数求值)
+     */
+    public static void recordFunction(String functionName, long argNanos, long totalNanos) {
+        FUNCTIONS.computeIfAbsent(functionName, name -> new Stats()).record(argNanos, totalNanos);
+    }
+
+    /**
+     * 记录一次运算表达式执行
+     *
+     * @param operation  运算表达式
+     * @param totalNanos 耗时
+     */
+    public static void recordOperation(String operation, long totalNanos) {
+        OPERATIONS.computeIfAbsent(operation, name -> new Stats()).record(0, totalNanos);
+    }
+
+    /**
+     * 记录一次Aviator编译
+     */
+    static void recordAviatorCompile() {
+        AVIATOR_COMPILE_COUNT.increment();
+    }
+
+    /**
+     * 记录一次Aviator缓存命中
+     */
+    static void recordAviatorCacheHit() {
+        AVIATOR_CACHE_HIT_COUNT.increment();
+    }
+
+    /**
+     * 获取统计快照
+     */
+    public static Snapshot snapshot() {
+        return new Snapshot(profiles(FUNCTIONS), profiles(OPERATIONS), AVIATOR_COMPILE_COUNT.sum(), AVIATOR_CACHE_HIT_COUNT.sum());
+    }
+
+    /**
+     * 清空统计
+     */
+    public static void reset() {
+        FUNCTIONS.clear();
+        OPERATIONS.clear();
+        AVIATOR_COMPILE_COUNT.reset();
+        AVIATOR_CACHE_HIT_COUNT.reset();
+    }
+
+    private static Map<String, Profile> profiles(Map<String, Stats> statsMap) {
+        Map<String, Profile> profiles = new TreeMap<>();
+        statsMap.forEach((name, stats) -> profiles.put(name, stats.toProfile(name)));
+        return profiles;
+    }
+
+    /**
+     * 单个函数或运算表达式的计数器
+     */
+    private static class Stats {
+
+        private final LongAdder callCount = new LongAdder();
+
+        private final LongAdder totalNanos = new LongAdder();
+
+        private final LongAdder argNanos = new LongAdder();
+
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+
+        void record(long argNanos, long totalNanos) {
+            callCount.increment();
+            this.totalNanos.add(totalNanos);
+            this.argNanos.add(argNanos);
+            buckets.incrementAndGet(Math.min(BUCKET_COUNT - 1, BUCKET_COUNT - Long.numberOfLeadingZeros(Math.max(totalNanos, 0))));
+        }
+
+        Profile toProfile(String name) {
+            long[] counts = new long[BUCKET_COUNT];
+            long total = 0;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                counts[i] = buckets.get(i);
+                total += counts[i];
+            }
+            // p99取所在桶的上界
+            long p99Nanos = 0;
+            long threshold = (long) Math.ceil(total * 0.99);
+            long cumulative = 0;
+            for (int i = 0; i < BUCKET_COUNT && total > 0; i++) {
+                cumulative += counts[i];
+                if (cumulative >= threshold) {
+                    p99Nanos = i == 0 ? 0 : (1L << Math.min(i, 62));
+                    break;
+                }
+            }
+            return new Profile(name, callCount.sum(), totalNanos.sum(), argNanos.sum(), p99Nanos);
+        }
+    }
+
+    /**
+     * 单个函数或运算表达式的统计
+     */
+    @Data
+    @AllArgsConstructor
+    public static class Profile {
+        private String name;
+        private long callCount;
+        private long totalNanos;
+        private long argNanos;
+        private long p99Nanos;
+
+        /**
+         * 平均耗时
+         */
+        public double averageNanos() {
+            return callCount == 0 ? 0 : (double) totalNanos / callCount;
+        }
+    }
+
+    /**
+     * 统计快照
+     */
+    @Data
+    @AllArgsConstructor
+    public static class Snapshot {
+        private Map<String, Profile> functions;
+        private Map<String, Profile> operations;
+        private long aviatorCompileCount;
+        private long aviatorCacheHitCount;
+    }
+
+}
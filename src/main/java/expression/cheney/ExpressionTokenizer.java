@@ -0,0 +1,245 @@
+package expression.cheney;
+
+import static expression.cheney.CharConstants.*;
+
+/**
+ * 表达式词法分析器
+ * 对表达式char数组做一次线性扫描，输出token类型与起止位置，并在扫描时完成括号配对、
+ * 记录每对括号内是否包含函数调用，供{@link SinglePassParser}递归下降解析时直接使用，无需再次扫描子串
+ *
+ * @author cheney
+ * @date 2020-01-16
+ */
+class ExpressionTokenizer {
+
+    /**
+     * token类型
+     */
+    final static byte IDENT = 1;
+    final static byte STRING = 2;
+    final static byte LEFT = 3;
+    final static byte RIGHT = 4;
+    final static byte COMMA = 5;
+    final static byte OPERATOR = 6;
+    final static byte OTHER = 7;
+
+    /**
+     * 原表达式
+     */
+    final String expression;
+
+    /**
+     * token个数
+     */
+    int count;
+
+    /**
+     * token类型
+     */
+    final byte[] types;
+
+    /**
+     * token起始位置(包含)
+     */
+    final int[] starts;
+
+    /**
+     * token结束位置(不包含)
+     */
+    final int[] ends;
+
+    /**
+     * LEFT token对应的RIGHT token下标
+     */
+    final int[] matches;
+
+    /**
+     * LEFT token对应的括号内是否包含函数调用
+     */
+    final boolean[] containsCall;
+
+    /**
+     * 表达式中是否包含函数调用
+     */
+    boolean hasCall;
+
+    /**
+     * 是否只能由1.8解析逻辑解析：1.8解析逻辑配对括号时不跳过字符串常量，且只跳过空格，
+     * 括号内的字符串常量包含括号或表达式包含空格以外的空白字符时为true
+     */
+    boolean legacyOnly;
+
+    ExpressionTokenizer(String expression) {
+        this.expression = expression;
+        int length = expression.length();
+        this.types = new byte[length];
+        this.starts = new int[length];
+        this.ends = new int[length];
+        this.matches = new int[length];
+        this.containsCall = new boolean[length];
+        tokenize(expression.toCharArray());
+    }
+
+    /**
+     * 扫描表达式
+     * 函数调用为IDENT后紧跟LEFT(允许空格)，扫描时以栈配对括号;
+     * 是否包含函数调用与{@link CharConstants#CONTAINS_FUNC}一致：'('前(允许空格)为ASCII字母时才计为函数调用，
+     * 包括字符串常量内的文本
+     */
+    private void tokenize(char[] chars) {
+        int length = chars.length;
+        // 未配对的LEFT token下标及其出现时的函数调用个数
+        int[] leftStack = new int[length];
+        int[] callCountStack = new int[length];
+        int depth = 0;
+        int callCount = 0;
+        int i = 0;
+        while (i < length) {
+            char c = chars[i];
+            if (Character.isWhitespace(c)) {
+                if (c != SPACE_CHAR) {
+                    legacyOnly = true;
+                }
+                i++;
+                continue;
+            }
+            int start = i;
+            byte type;
+            if (c == APOSTROPHE_CHAR) {
+                int end = i + 1;
+                while (end < length && chars[end] != APOSTROPHE_CHAR) {
+                    end++;
+                }
+                if (end == length) {
+                    throw new ExpressionParseException(expression.substring(start) + " : miss end char \"" + APOSTROPHE_CHAR + "\"", start);
+                }
+                if (depth > 0 && !legacyOnly) {
+                    legacyOnly = expression.indexOf(BRACKETS_LEFT_CHAR, start) < end || expression.indexOf(BRACKETS_RIGHT_CHAR, start) < end;
+                }
+                if (containsCall(chars, start + 1, end)) {
+                    callCount++;
+                    hasCall = true;
+                }
+                type = STRING;
+                i = end + 1;
+            } else if (c == BRACKETS_LEFT_CHAR) {
+                type = LEFT;
+                if (count > 0 && types[count - 1] == IDENT && isAsciiLetter(chars[ends[count - 1] - 1])
+                        && isRegexSpace(chars, ends[count - 1], i)) {
+                    callCount++;
+                    hasCall = true;
+                }
+                leftStack[depth] = count;
+                callCountStack[depth++] = callCount;
+                i++;
+            } else if (c == BRACKETS_RIGHT_CHAR) {
+                if (depth == 0) {
+                    throw new ExpressionParseException(expression.substring(0, i + 1) + " : miss start char \"" + BRACKETS_LEFT_CHAR + "\"", i);
+                }
+                type = RIGHT;
+                int left = leftStack[--depth];
+                matches[left] = count;
+                containsCall[left] = callCount > callCountStack[depth];
+                i++;
+            } else if (c == COMMA_CHAR) {
+                type = COMMA;
+                i++;
+            } else if (isOperator(c)) {
+                type = OPERATOR;
+                i++;
+            } else if (isIdentPart(c)) {
+                type = IDENT;
+                do {
+                    i++;
+                } while (i < length && isIdentPart(chars[i]));
+            } else {
+                type = OTHER;
+                i++;
+            }
+            types[count] = type;
+            starts[count] = start;
+            ends[count++] = i;
+        }
+        if (depth > 0) {
+            int left = starts[leftStack[depth - 1]];
+            throw new ExpressionParseException(expression.substring(left) + " : miss end char \"" + BRACKETS_RIGHT_CHAR + "\"", left);
+        }
+    }
+
+    /**
+     * chars[from,to)中是否存在ASCII字母后紧跟'('(允许空格)
+     */
+    private static boolean containsCall(char[] chars, int from, int to) {
+        boolean afterLetter = false;
+        for (int i = from; i < to; i++) {
+            char c = chars[i];
+            if (c == BRACKETS_LEFT_CHAR && afterLetter) {
+                return true;
+            }
+            if (isAsciiLetter(c)) {
+                afterLetter = true;
+            } else if (!isRegexSpace(c)) {
+                afterLetter = false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * chars[from,to)是否都为正则中的\s
+     */
+    private static boolean isRegexSpace(char[] chars, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (!isRegexSpace(chars[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isRegexSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    private static boolean isAsciiLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    /**
+     * 获取token[from,to]覆盖的原表达式文本
+     */
+    String text(int from, int to) {
+        return expression.substring(starts[from], ends[to]);
+    }
+
+    /**
+     * 运算符，与{@link CharConstants#CONTAINS_OPERATOR_PATTERN}一致
+     */
+    static boolean isOperator(char c) {
+        switch (c) {
+            case '+':
+            case '-':
+            case '*':
+            case '/':
+            case '%':
+            case '?':
+            case '>':
+            case '<':
+            case '=':
+            case '|':
+            case '&':
+            case '!':
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * 变量名、函数名、数字的组成字符
+     */
+    private static boolean isIdentPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '.' || c == '$';
+    }
+
+}
@@ -0,0 +1,200 @@
+package expression.cheney;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 函数注册表
+ * 维护表达式可调用的函数类，支持运行时添加、移除以及重新读取func-config.conf，
+ * 每次变化版本号加1并通知监听者变化的函数名(变化类中的公共静态方法名)，
+ * 由监听者只失效引用了这些函数的表达式缓存
+ *
+ * @author cheney
+ * @date 2020-01-30
+ */
+@Slf4j
+public class FunctionRegistry {
+
+    /**
+     * 函数类配置文件
+     */
+    public final static String CONFIG_FILE = "func-config.conf";
+
+    /**
+     * 函数类，支持并发读取
+     */
+    private final Set<Class<?>> functionClasses = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 由配置文件加载的函数类
+     */
+    private final Set<Class<?>> configClasses = new HashSet<>();
+
+    private final AtomicLong version = new AtomicLong();
+
+    private final List<FunctionChangeListener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * 添加函数类
+     *
+     * @param clazz 函数类
+     * @return 是否有变化
+     */
+    public synchronized boolean register(Class<?> clazz) {
+        if (!functionClasses.add(clazz)) {
+            return false;
+        }
+        changed(Collections.singleton(clazz));
+        return true;
+    }
+
+    /**
+     * 移除函数类
+     *
+     * @param clazz 函数类
+     * @return 是否有变化
+     */
+    public synchronized boolean unregister(Class<?> clazz) {
+        if (!functionClasses.remove(clazz)) {
+            return false;
+        }
+        configClasses.remove(clazz);
+        changed(Collections.singleton(clazz));
+        return true;
+    }
+
+    /**
+     * 读取类加载器中的func-config.conf，添加新配置的函数类，移除不再配置的函数类
+     * 配置文件格式为一行以','分隔的类名，读取失败时不做任何变化
+     *
+     * @param classLoader 类加载器
+     * @return 是否有变化
+     */
+    public synchronized boolean reload(ClassLoader classLoader) {
+        Set<Class<?>> loaded = new LinkedHashSet<>();
+        try (InputStream inputStream = classLoader.getResourceAsStream(CONFIG_FILE)) {
+            if (inputStream != null) {
+                BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+                String classesStr = bufferedReader.readLine();
+                if (classesStr != null) {
+                    for (String classStr : classesStr.split(",")) {
+                        if (!classStr.trim().isEmpty()) {
+                            loaded.add(classLoader.loadClass(classStr.trim()));
+                        }
+                    }
+                }
+            }
+        } catch (IOException | ClassNotFoundException e) {
+            log.error("读取" + CONFIG_FILE + "异常", e);
+            return false;
+        }
+        Set<Class<?>> changedClasses = new HashSet<>();
+        for (Class<?> clazz : configClasses) {
+            if (!loaded.contains(clazz) && functionClasses.remove(clazz)) {
+                changedClasses.add(clazz);
+            }
+        }
+        for (Class<?> clazz : loaded) {
+            if (functionClasses.add(clazz)) {
+                changedClasses.add(clazz);
+            }
+        }
+        configClasses.clear();
+        configClasses.addAll(loaded);
+        if (changedClasses.isEmpty()) {
+            return false;
+        }
+        changed(changedClasses);
+        return true;
+    }
+
+    /**
+     * 添加函数变化监听
+     *
+     * @param listener 监听者
+     */
+    public void addListener(FunctionChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * 当前版本号，每次函数类变化加1
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * 当前的函数类，只读视图
+     */
+    public Set<Class<?>> getFunctionClasses() {
+        return Collections.unmodifiableSet(functionClasses);
+    }
+
+    /**
+     * 函数类集合本身，供编译器并发读取
+     */
+    Set<Class<?>> functionClasses() {
+        return functionClasses;
+    }
+
+    private void changed(Collection<Class<?>> classes) {
+        Set<String> functionNames = new HashSet<>();
+        for (Class<?> clazz : classes) {
+            functionNames.addAll(functionNames(clazz));
+        }
+        long current = version.incrementAndGet();
+        log.info("函数注册表版本 {} 变化的函数类:{}", current, classes);
+        Set<Class<?>> changedClasses = Collections.unmodifiableSet(new HashSet<>(classes));
+        Set<String> changedNames = Collections.unmodifiableSet(functionNames);
+        for (FunctionChangeListener listener : listeners) {
+            listener.onChange(current, changedClasses, changedNames);
+        }
+    }
+
+    /**
+     * 类中可作为函数调用的公共静态方法名
+     */
+    static Set<String> functionNames(Class<?> clazz) {
+        Set<String> names = new HashSet<>();
+        for (Method method : clazz.getMethods()) {
+            if (Modifier.isStatic(method.getModifiers())) {
+                names.add(method.getName());
+            }
+        }
+        return names;
+    }
+
+    /**
+     * 函数变化监听
+     */
+    @FunctionalInterface
+    public interface FunctionChangeListener {
+
+        /**
+         * 函数类变化
+         *
+         * @param version       变化后的版本号
+         * @param classes       变化的函数类
+         * @param functionNames 变化的函数名
+         */
+        void onChange(long version, Set<Class<?>> classes, Set<String> functionNames);
+    }
+
+}
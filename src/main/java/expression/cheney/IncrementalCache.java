@@ -0,0 +1,74 @@
+package expression.cheney;
+
+import expression.cheney.node.ExpressionNode;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * 增量执行的结果缓存
+ * 记录上一次执行时各可复用节点的结果，由{@link BaseExpressionExecutor#executeIncremental(Map, IncrementalCache, java.util.Set)}读写，
+ * 只能用于创建它的执行器，非线程安全，每个数据流各自持有一个实例
+ *
+ * @author cheney
+ * @date 2020-01-23
+ */
+public class IncrementalCache {
+
+    /**
+     * 所属执行器的编译结果
+     */
+    private final CompiledExpression compiled;
+
+    /**
+     * 节点结果，按节点实例区分
+     */
+    private final Map<ExpressionNode, Object> results = new IdentityHashMap<>();
+
+    /**
+     * 上一次执行重新计算的节点数
+     */
+    private int evaluatedCount;
+
+    IncrementalCache(CompiledExpression compiled) {
+        this.compiled = compiled;
+    }
+
+    boolean contains(ExpressionNode node) {
+        return results.containsKey(node);
+    }
+
+    Object get(ExpressionNode node) {
+        return results.get(node);
+    }
+
+    void put(ExpressionNode node, Object value) {
+        results.put(node, value);
+    }
+
+    CompiledExpression getCompiled() {
+        return compiled;
+    }
+
+    void resetEvaluatedCount() {
+        evaluatedCount = 0;
+    }
+
+    void incrementEvaluatedCount() {
+        evaluatedCount++;
+    }
+
+    /**
+     * 清空缓存，下一次增量执行将完整执行
+     */
+    public void clear() {
+        results.clear();
+    }
+
+    /**
+     * 上一次执行重新计算的节点数
+     */
+    public int getEvaluatedCount() {
+        return evaluatedCount;
+    }
+}
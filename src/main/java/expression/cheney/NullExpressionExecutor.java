@@ -1,5 +1,7 @@
 package expression.cheney;
 
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -21,6 +23,16 @@ public class NullExpressionExecutor implements ExpressionExecutor {
         return null;
     }
 
+    @Override
+    public List<Object> executeBatch(List<Map<String, Object>> envs) {
+        return Collections.nCopies(envs.size(), null);
+    }
+
+    @Override
+    public List<Object> executeBatch(Map<String, Object[]> columns) {
+        return Collections.nCopies(ColumnarEnv.rowCount(columns), null);
+    }
+
     /**
      * 获取实例
      *
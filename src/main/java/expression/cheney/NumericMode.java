@@ -0,0 +1,22 @@
+package expression.cheney;
+
+/**
+ * 数值运算模式
+ *
+ * @author cheney
+ * @date 2020-01-28
+ */
+public enum NumericMode {
+
+    /**
+     * 数字字面量解析为BigDecimal/Integer，运算交由Aviator按BigDecimal精确计算，默认模式，适用于金额
+     */
+    DECIMAL,
+
+    /**
+     * 函数参数中的整数字面量解析为Integer(超出int范围时为Long)，小数字面量解析为Double；
+     * 只含四则运算与取模的表达式编译为基本类型运算节点，与Aviator相同，整数之间按long计算(除法取整)，
+     * 含小数时按double计算；其余运算交由Aviator按long/double计算，适用于评分等对精度不敏感的场景
+     */
+    DOUBLE
+}
@@ -1,15 +1,16 @@
 package expression.cheney;
 
+import expression.cheney.func.InternalFunction;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections4.CollectionUtils;
 import reflect.methodHolder.DefaultMethodHolderFactory;
 import reflect.methodHolder.MethodHolderFactory;
 
-import java.io.BufferedReader;
-import java.io.InputStream;
-import java.io.InputStreamReader;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 
 import static expression.cheney.BaseExpressionParser.ParseResult.FUNC;
@@ -31,64 +32,283 @@ public class ReflectExpressionParser extends BaseExpressionParser {
     private MethodHolderFactory methodHolderFactory;
 
     /**
-     * 执行反射的类
+     * 函数注册表，支持解析过程中并发添加、移除函数类
      */
-    private Set<Class<?>> functionClasses;
+    private final FunctionRegistry registry = new FunctionRegistry();
+
+    /**
+     * 表达式编译器
+     */
+    private ExpressionCompiler compiler;
+
+    /**
+     * 默认缓存表达式个数
+     */
+    public final static int DEFAULT_CACHE_CAPACITY = 4096;
+
+    /**
+     * 表达式执行器缓存
+     */
+    private volatile ExpressionCache expressionCache = new ExpressionCache(DEFAULT_CACHE_CAPACITY);
+
+    /**
+     * 是否开启缓存
+     */
+    private volatile boolean cacheEnabled = true;
 
     /**
      * ReflectExpressionParser单例
      */
-    private static ReflectExpressionParser defaultReflectExpressionParser;
+    private static volatile ReflectExpressionParser defaultReflectExpressionParser;
 
     private ReflectExpressionParser() {
-        ClassLoader classLoader = ReflectExpressionParser.class.getClassLoader();
-        InputStream resourceAsStream = classLoader.getResourceAsStream("func-config.conf");
-        functionClasses = new HashSet<>();
-        if (resourceAsStream != null) {
-            try {
-                // 读取func-config.conf配置中的类
-                BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(resourceAsStream));
-                String classesStr = bufferedReader.readLine();
-                String[] classStrArray = classesStr.split(",");
-                for (String classStr : classStrArray) {
-                    functionClasses.add(classLoader.loadClass(classStr));
-                }
-            } catch (Exception e) {
-                log.error("ReflectExpressionParser初始化异常", e);
-            }
-        }
+        // 读取func-config.conf配置中的类
+        registry.reload(ReflectExpressionParser.class.getClassLoader());
+        // 添加内置函数类
+        registry.register(InternalFunction.class);
         methodHolderFactory = new DefaultMethodHolderFactory();
+        compiler = new ExpressionCompiler(methodHolderFactory, registry.functionClasses());
+        registry.addListener(this::onFunctionChange);
     }
 
     public ReflectExpressionParser(MethodHolderFactory methodHolderFactory, Collection<Class<?>> classes) {
         this.methodHolderFactory = methodHolderFactory;
-        this.functionClasses = new HashSet<>(classes);
+        for (Class<?> clazz : classes) {
+            registry.register(clazz);
+        }
+        registry.register(InternalFunction.class);
+        this.compiler = new ExpressionCompiler(methodHolderFactory, registry.functionClasses());
+        registry.addListener(this::onFunctionChange);
+    }
+
+    /**
+     * 函数类变化时丢弃变化类的方法反射缓存，并只失效引用了变化函数的表达式缓存
+     */
+    private void onFunctionChange(long version, Set<Class<?>> classes, Set<String> functionNames) {
+        for (Class<?> clazz : classes) {
+            methodHolderFactory.removeMethodHolder(clazz);
+        }
+        int removed = expressionCache.removeIf(executor -> executor instanceof BaseExpressionExecutor &&
+                !Collections.disjoint(((BaseExpressionExecutor) executor).getCompiled().getFunctionNames(), functionNames));
+        log.info("函数注册表版本 {} 失效表达式缓存数:{}", version, removed);
     }
 
     @Override
     public ExpressionExecutor parseExpression(String expression) {
-        ParseResult parseResult = parse(expression);
+        return buildExecutor(expression, parse(expression));
+    }
+
+    /**
+     * 由解析结果构建执行器
+     *
+     * @param expression  表达式
+     * @param parseResult 解析结果
+     * @return 执行器
+     */
+    ExpressionExecutor buildExecutor(String expression, ParseResult parseResult) {
         switch (parseResult.getType()) {
             case FUNC: {
-                return new ReflectExpressionExecutor(expression, parseResult, this.methodHolderFactory, this.functionClasses);
+                CompiledExpression compiled = compiler.compile(parseResult);
+                if (compiled.getFoldedNodeCount() > 0) {
+                    log.debug("表达式 {} 编译期折叠常量节点数:{}", expression, compiled.getFoldedNodeCount());
+                }
+                return new ReflectExpressionExecutor(expression, parseResult, compiled);
             }
             case NULL_VALUE: {
                 // 1.6 新增，处理'null'表达式解析结果
                 return NullExpressionExecutor.getInstance();
             }
             default: {
+                if (compiler.getNumericMode() == NumericMode.DOUBLE) {
+                    return new ReflectExpressionExecutor(expression, parseResult, compiler.compileOrigin(parseResult.getFuncName()));
+                }
                 return parseOriginExpressionWithCache(expression);
             }
         }
     }
 
+    /**
+     * 函数集合的hash，由函数类及其公共方法签名计算，函数类或方法变化时hash随之变化
+     *
+     * @return hash
+     */
+    long functionSetHash() {
+        List<String> signatures = new ArrayList<>();
+        for (Class<?> clazz : registry.functionClasses()) {
+            signatures.add(clazz.getName());
+            for (Method method : clazz.getMethods()) {
+                signatures.add(method.toString());
+            }
+        }
+        Collections.sort(signatures);
+        // FNV-1a
+        long hash = 0xcbf29ce484222325L;
+        for (String signature : signatures) {
+            for (int i = 0; i < signature.length(); i++) {
+                hash ^= signature.charAt(i);
+                hash *= 0x100000001b3L;
+            }
+            hash ^= '\n';
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * 函数绑定的方法签名
+     *
+     * @param functionName 函数名
+     * @param argCount     参数个数
+     * @return 方法签名，找不到函数时为空字符串
+     */
+    String functionSignature(String functionName, int argCount) {
+        return compiler.signature(functionName, argCount);
+    }
+
+    /**
+     * 将执行器放入缓存，缓存关闭时忽略
+     *
+     * @param expression 表达式
+     * @param executor   执行器
+     */
+    void cacheExecutor(String expression, ExpressionExecutor executor) {
+        if (cacheEnabled) {
+            expressionCache.put(expression, executor);
+        }
+    }
+
+    /**
+     * 共同编译一组表达式为规则集
+     * 对同一env执行时，相同的纯函数调用与变量只执行/读取一次
+     *
+     * @param expressions 表达式
+     * @return 规则集
+     */
+    public RuleSet compileRuleSet(List<String> expressions) {
+        List<ParseResult> parseResults = new ArrayList<>(expressions.size());
+        for (String expression : expressions) {
+            parseResults.add(parse(expression));
+        }
+        RuleSet ruleSet = compiler.compileRuleSet(expressions, parseResults);
+        log.debug("规则集表达式数:{}, 复用节点数:{}", ruleSet.size(), ruleSet.getSharedNodeCount());
+        return ruleSet;
+    }
+
+    /**
+     * 默认的解析方法不带缓存{@link #parseExpression(java.lang.String)}，提供此方法解析表达式并缓存解析结果，
+     * 缓存关闭时等同于{@link #parseExpression(java.lang.String)}
+     *
+     * @param expression 表达式
+     * @return 表达式解析结果
+     */
+    public ExpressionExecutor parseExpressionWithCache(String expression) {
+        if (!cacheEnabled || expression == null) {
+            return parseExpression(expression);
+        }
+        long version = registry.getVersion();
+        ExpressionExecutor executor = expressionCache.get(expression, this::parseExpression);
+        if (registry.getVersion() != version) {
+            // 解析期间函数类发生变化，执行器可能绑定了旧的函数，不保留在缓存中
+            expressionCache.remove(expression);
+        }
+        return executor;
+    }
+
+    /**
+     * 开启/关闭缓存，关闭时清空已缓存的执行器
+     *
+     * @param cacheEnabled 是否开启
+     */
+    public void setCacheEnabled(boolean cacheEnabled) {
+        this.cacheEnabled = cacheEnabled;
+        if (!cacheEnabled) {
+            expressionCache.clear();
+        }
+    }
+
+    public boolean isCacheEnabled() {
+        return cacheEnabled;
+    }
+
+    /**
+     * 重新设置缓存容量，已缓存的执行器与统计计数将被丢弃
+     *
+     * @param capacity 最多缓存的表达式个数
+     */
+    public void setCacheCapacity(int capacity) {
+        this.expressionCache = new ExpressionCache(capacity);
+    }
+
+    /**
+     * 设置数值运算模式，已缓存的执行器将被清空
+     * 默认为{@link NumericMode#DECIMAL}，金额计算不应使用{@link NumericMode#DOUBLE}
+     *
+     * @param numericMode 数值运算模式
+     */
+    public void setNumericMode(NumericMode numericMode) {
+        if (numericMode == null) {
+            throw new NullPointerException();
+        }
+        compiler.setNumericMode(numericMode);
+        expressionCache.clear();
+    }
+
+    public NumericMode getNumericMode() {
+        return compiler.getNumericMode();
+    }
+
+    /**
+     * 获取缓存命中/未命中/淘汰计数
+     */
+    public ExpressionCache.CacheStats getCacheStats() {
+        return expressionCache.stats();
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void clearCache() {
+        expressionCache.clear();
+    }
+
     /**
      * 动态添加方法反射类
+     * 只对之后解析的表达式生效，已缓存的执行器中只有引用了该类函数名的被清除
      *
      * @param clazz 类
      */
     public void addFunctionClass(Class<?> clazz) {
-        functionClasses.add(clazz);
+        registry.register(clazz);
+    }
+
+    /**
+     * 动态移除方法反射类
+     * 已缓存的执行器中只有引用了该类函数名的被清除，已获取的执行器仍可执行
+     *
+     * @param clazz 类
+     */
+    public void removeFunctionClass(Class<?> clazz) {
+        registry.unregister(clazz);
+    }
+
+    /**
+     * 重新读取func-config.conf，添加新配置的类并移除不再配置的类
+     *
+     * @return 是否有变化
+     */
+    public boolean reloadFunctionConfig() {
+        return registry.reload(ReflectExpressionParser.class.getClassLoader());
+    }
+
+    public FunctionRegistry getFunctionRegistry() {
+        return registry;
+    }
+
+    /**
+     * 函数注册表当前版本号
+     */
+    public long getFunctionVersion() {
+        return registry.getVersion();
     }
 
     /**
@@ -107,6 +327,7 @@ public class ReflectExpressionParser extends BaseExpressionParser {
 
     /**
      * 获取新的ReflectExpressionParser解析器实例
+     * 函数通过methodHolderFactory默认的MethodHolder实现调用，如{@code new DefaultMethodHolderFactory(HandleMethodHolder.class)}
      */
     public static ReflectExpressionParser getInstance(MethodHolderFactory methodHolderFactory, Collection<Class<?>> classes) {
         if (methodHolderFactory == null || CollectionUtils.isEmpty(classes)) {
@@ -0,0 +1,92 @@
+package expression.cheney;
+
+import expression.cheney.node.ExpressionNode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * 规则集
+ * 一组表达式共同编译，多个表达式中结构相同的纯函数/确定性函数调用(如相同参数的jsonToMap)与变量合并为同一节点，
+ * 对同一env执行时共享一个执行上下文，公共子表达式只执行一次、变量只从env中读取一次，一次返回所有表达式的结果
+ *
+ * @author cheney
+ * @date 2020-01-22
+ */
+public class RuleSet {
+
+    /**
+     * 表达式
+     */
+    private final String[] expressions;
+
+    /**
+     * 各表达式的根节点
+     */
+    private final ExpressionNode[] roots;
+
+    /**
+     * 临时变量槽位数
+     */
+    private final int scratchSize;
+
+    /**
+     * 编译期合并的公共子表达式次数
+     */
+    private final int sharedNodeCount;
+
+    RuleSet(String[] expressions, ExpressionNode[] roots, int scratchSize, int sharedNodeCount) {
+        this.expressions = expressions;
+        this.roots = roots;
+        this.scratchSize = scratchSize;
+        this.sharedNodeCount = sharedNodeCount;
+    }
+
+    /**
+     * 执行所有表达式
+     *
+     * @param env 参数，只读
+     * @return 结果，顺序与编译时的表达式一致
+     */
+    public List<Object> execute(Map<String, Object> env) {
+        EvaluationContext context = new EvaluationContext(env, scratchSize);
+        Object[] results = new Object[roots.length];
+        for (int i = 0; i < roots.length; i++) {
+            try {
+                results[i] = roots[i].execute(context);
+            } catch (RuntimeException e) {
+                throw new ExpressionExecuteException(expressions[i], e);
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * 批量执行，每行env执行一遍规则集
+     *
+     * @param envs 每行的参数
+     * @return 每行的结果，顺序与envs一致
+     */
+    @SuppressWarnings("unchecked")
+    public List<List<Object>> executeBatch(List<Map<String, Object>> envs) {
+        List<Map<String, Object>> rows = envs instanceof RandomAccess ? envs : new ArrayList<>(envs);
+        List<?> results = BatchExecution.run(rows.size(), row -> execute(rows.get(row)));
+        return (List<List<Object>>) results;
+    }
+
+    public List<String> getExpressions() {
+        return Collections.unmodifiableList(Arrays.asList(expressions));
+    }
+
+    public int size() {
+        return roots.length;
+    }
+
+    public int getSharedNodeCount() {
+        return sharedNodeCount;
+    }
+}
@@ -0,0 +1,241 @@
+package expression.cheney;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static expression.cheney.ExpressionTokenizer.*;
+import static expression.cheney.func.InternalFunction.OUT_PUT_FUNC_NAME;
+
+/**
+ * 递归下降表达式解析器
+ * 基于{@link ExpressionTokenizer}的token一次线性解析，输出与{@link BaseExpressionParser#parseLegacy(String)}
+ * 相同结构的{@link BaseExpressionParser.ParseResult}/{@link BaseExpressionParser.Arg}：
+ * <p>
+ * 1.参数按顶层','分隔，参数内由原始类型段、常量、函数、括号段组成;
+ * 2.单个原始类型/常量/函数为对应类型的Arg，多个部分组成COMBINATION组合段落;
+ * 3.括号段(非函数调用的括号)作为组合段落的一部分，括号内包含函数时解析为输出函数，否则为原始类型;
+ * 4.组合段落中各部分之间必须以运算符连接;
+ * 5.是否包含函数与{@link CharConstants#CONTAINS_FUNC}一致，'('前为ASCII字母时才视为函数调用;
+ * 6.不符合以上语法的表达式(如缺少运算符、参数为空、函数名前为'?'/'%'、括号内的字符串常量包含括号、包含空格以外的空白字符)返回null，
+ *   由1.8解析逻辑解析，保证解析结果与错误信息一致。
+ *
+ * @author cheney
+ * @date 2020-01-16
+ */
+class SinglePassParser {
+
+    private final ExpressionTokenizer tokens;
+
+    private SinglePassParser(ExpressionTokenizer tokens) {
+        this.tokens = tokens;
+    }
+
+    /**
+     * 解析表达式，表达式不包含函数时为原始类型
+     *
+     * @param expression 已去除首尾空格的非空表达式
+     * @return 解析结果，无法解析时返回null
+     */
+    static BaseExpressionParser.ParseResult parse(String expression) {
+        try {
+            ExpressionTokenizer tokens = new ExpressionTokenizer(expression);
+            if (!tokens.hasCall) {
+                return BaseExpressionParser.ParseResult.origin(expression);
+            }
+            if (tokens.legacyOnly) {
+                return null;
+            }
+            // 最外层拼接输出函数
+            SinglePassParser parser = new SinglePassParser(tokens);
+            return BaseExpressionParser.ParseResult.func(OUT_PUT_FUNC_NAME, parser.parseArgs(0, tokens.count));
+        } catch (ExpressionParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 解析函数调用
+     *
+     * @param nameIndex 函数名token下标，其后紧跟LEFT
+     * @return 函数解析结果
+     */
+    private BaseExpressionParser.ParseResult parseCall(int nameIndex) {
+        int left = nameIndex + 1;
+        // 与1.8一致，函数名包含与'('之间的空格
+        String funcName = tokens.expression.substring(tokens.starts[nameIndex], tokens.starts[left]);
+        return BaseExpressionParser.ParseResult.func(funcName, parseArgs(left + 1, tokens.matches[left]));
+    }
+
+    /**
+     * 解析参数列表
+     *
+     * @param from 起始token下标(包含)
+     * @param to   结束token下标(不包含)，为函数的RIGHT或token总数
+     * @return 参数
+     */
+    private List<BaseExpressionParser.Arg> parseArgs(int from, int to) {
+        if (from == to) {
+            // 空参
+            return BaseExpressionParser.Arg.EMPTY_ARG;
+        }
+        List<BaseExpressionParser.Arg> args = new ArrayList<>();
+        int index = from;
+        while (true) {
+            int end = parseArg(index, to, args);
+            if (end == to) {
+                return args;
+            }
+            // 当前为','
+            index = end + 1;
+            if (index == to) {
+                throw error("miss arg in func", tokens.starts[end]);
+            }
+        }
+    }
+
+    /**
+     * 解析单个参数，直到顶层','或结束位置
+     *
+     * @param from 起始token下标
+     * @param to   结束token下标(不包含)
+     * @param args 参数集合
+     * @return 参数结束位置(','下标或to)
+     */
+    private int parseArg(int from, int to, List<BaseExpressionParser.Arg> args) {
+        ArgBuilder builder = new ArgBuilder();
+        // 当前原始类型段的起始token，-1表示无
+        int runStart = -1;
+        int i = from;
+        while (i < to) {
+            byte type = tokens.types[i];
+            if (type == COMMA) {
+                break;
+            }
+            if (type == STRING) {
+                builder.addRun(runStart, i - 1);
+                runStart = -1;
+                String text = tokens.text(i, i);
+                builder.add(new BaseExpressionParser.Arg(text.substring(1, text.length() - 1), BaseExpressionParser.Arg.CONSTANT), i, false);
+                i++;
+            } else if (type == IDENT && i + 1 < to && tokens.types[i + 1] == LEFT) {
+                if (runStart >= 0 && isLegacyFuncNamePart(i - 1)) {
+                    // 1.8解析逻辑不以'?'/'%'拆分函数名
+                    throw error("unsupported func name", tokens.starts[i - 1]);
+                }
+                builder.addRun(runStart, i - 1);
+                runStart = -1;
+                builder.add(new BaseExpressionParser.Arg(parseCall(i), BaseExpressionParser.Arg.FUNC), i, false);
+                i = tokens.matches[i + 1] + 1;
+            } else if (type == LEFT) {
+                // 括号段
+                builder.addRun(runStart, i - 1);
+                runStart = -1;
+                int right = tokens.matches[i];
+                BaseExpressionParser.Arg group = tokens.containsCall[i] ?
+                        new BaseExpressionParser.Arg(BaseExpressionParser.ParseResult.func(OUT_PUT_FUNC_NAME, parseArgs(i + 1, right)), BaseExpressionParser.Arg.FUNC) :
+                        new BaseExpressionParser.Arg(tokens.text(i, right), BaseExpressionParser.Arg.ORIGIN);
+                builder.add(group, i, true);
+                i = right + 1;
+            } else {
+                if (runStart < 0) {
+                    runStart = i;
+                }
+                i++;
+            }
+        }
+        builder.addRun(runStart, i - 1);
+        if (builder.current == null) {
+            throw error("miss arg in func", i < tokens.count ? tokens.starts[i] : tokens.expression.length());
+        }
+        args.add(builder.current);
+        return i;
+    }
+
+    private boolean isLegacyFuncNamePart(int index) {
+        if (tokens.types[index] != OPERATOR) {
+            return false;
+        }
+        char c = tokens.expression.charAt(tokens.starts[index]);
+        return c == '?' || c == '%';
+    }
+
+    private ExpressionParseException error(String message, int position) {
+        return new ExpressionParseException(tokens.expression + " : error expression , " + message, position);
+    }
+
+    /**
+     * 单个参数的构建过程，多个部分时合并为组合段落
+     */
+    private class ArgBuilder {
+
+        /**
+         * 当前参数
+         */
+        private BaseExpressionParser.Arg current;
+
+        /**
+         * 组合段落的各部分
+         */
+        private List<BaseExpressionParser.Arg> parts;
+
+        /**
+         * 上一部分是否为以运算符结尾的原始类型段
+         */
+        private boolean lastEndWithOperator;
+
+        /**
+         * 上一部分是否为原始类型段
+         */
+        private boolean lastIsRun;
+
+        /**
+         * 添加原始类型段，非第一部分时必须以运算符开头
+         */
+        void addRun(int from, int to) {
+            if (from < 0) {
+                return;
+            }
+            if (current != null && tokens.types[from] != OPERATOR) {
+                throw new ExpressionParseException("miss operators before \"" + tokens.text(from, to) + "\"", tokens.starts[from]);
+            }
+            append(new BaseExpressionParser.Arg(tokens.text(from, to), BaseExpressionParser.Arg.ORIGIN), false);
+            lastIsRun = true;
+            lastEndWithOperator = tokens.types[to] == OPERATOR;
+        }
+
+        /**
+         * 添加常量、函数或括号段，非第一部分时前面必须是以运算符结尾的原始类型段
+         *
+         * @param arg         参数部分
+         * @param index       参数部分起始token下标
+         * @param combination 是否总是作为组合段落
+         */
+        void add(BaseExpressionParser.Arg arg, int index, boolean combination) {
+            if (current != null && !(lastIsRun && lastEndWithOperator)) {
+                throw new ExpressionParseException("miss operators before \"" + tokens.text(index, index) + "\"", tokens.starts[index]);
+            }
+            append(arg, combination);
+            lastIsRun = false;
+        }
+
+        private void append(BaseExpressionParser.Arg arg, boolean combination) {
+            if (current == null) {
+                if (combination) {
+                    parts = new ArrayList<>();
+                    parts.add(arg);
+                    current = new BaseExpressionParser.Arg(parts, BaseExpressionParser.Arg.COMBINATION);
+                } else {
+                    current = arg;
+                }
+                return;
+            }
+            if (parts == null) {
+                parts = new ArrayList<>();
+                parts.add(new BaseExpressionParser.Arg(current.getValue(), current.getType()));
+                current = new BaseExpressionParser.Arg(parts, BaseExpressionParser.Arg.COMBINATION);
+            }
+            parts.add(arg);
+        }
+    }
+
+}
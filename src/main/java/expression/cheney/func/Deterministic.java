@@ -0,0 +1,20 @@
+package expression.cheney.func;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 确定性函数标识
+ * 标注在函数类的方法上，表示函数结果只由参数决定且没有副作用，但结果可能为Map、List等可变容器：
+ * {@link expression.cheney.RuleSet}共同编译时结构相同的调用合并为同一节点，对同一env只执行一次；
+ * 与{@link Pure}不同，不在编译期折叠为常量，也不在增量执行间复用
+ *
+ * @author cheney
+ * @date 2020-01-30
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Deterministic {
+}
@@ -1,15 +1,16 @@
 package expression.cheney.func;
 
 import com.alibaba.fastjson.JSON;
-import jsonUtils.JsonUtils;
 import org.apache.commons.lang.time.DateFormatUtils;
 
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
 /**
  * 表达式执行器内置函数
+ * 参数类型为{@link Supplier}的参数延迟求值，只执行需要的分支
  *
  * @author cheney
  * @date 2019-12-13
@@ -26,44 +27,72 @@ public class InternalFunction {
         System.out.print(obj);
     }
 
+    @Pure
     public static String toJson(Object obj) {
         return JSON.toJSONString(obj);
     }
 
+    @Deterministic
     public static Map<String, Object> jsonToMap(String json) {
         return JSON.parseObject(json);
     }
 
+    @Deterministic
     public static List<Object> jsonToList(String json) {
         return JSON.parseArray(json);
     }
 
+    @Pure
     public static String substring(String text, int beginIndex, int len) {
         return text.substring(beginIndex, beginIndex + len);
     }
 
+    @Pure
     public static String date_format(Date date, String format) {
         return DateFormatUtils.format(date, format);
     }
 
-    public static Object ifs(Object... objs) {
-        System.out.println(JsonUtils.toJson(objs));
-        for (int i = 0; i < objs.length; i++) {
-            if ((i & 1) == 0 && (boolean) objs[i]) {
-                return objs[i + 1];
+    @Pure
+    public static Object ifs(Supplier<?>... objs) {
+        for (int i = 0; i < objs.length; i += 2) {
+            if ((Boolean) objs[i].get()) {
+                return objs[i + 1].get();
             }
         }
         return "error";
     }
 
+    @Pure
+    public static boolean and(Supplier<?>... conditions) {
+        for (Supplier<?> condition : conditions) {
+            if (!(Boolean) condition.get()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Pure
+    public static boolean or(Supplier<?>... conditions) {
+        for (Supplier<?> condition : conditions) {
+            if ((Boolean) condition.get()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Pure
     public static boolean contains(String text, String content) {
         return text.contains(content);
     }
 
+    @Pure
     public static String replace(String text, String oldChar, String replacement) {
         return text.replace(oldChar, replacement);
     }
 
+    @Pure
     public static Object output(Object object) {
         return object;
     }
@@ -0,0 +1,20 @@
+package expression.cheney.func;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 纯函数标识
+ * 标注在函数类(func-config.conf或{@link expression.cheney.ReflectExpressionParser#addFunctionClass(Class)}注册的类)的方法上，
+ * 表示函数结果只由参数决定且没有副作用，参数全部为常量且结果为不可变类型(String、数字、Boolean等)时在编译期执行并折叠为常量；
+ * 纯函数的结果会在增量执行间复用，返回Map、List等可变容器的函数不应标注，改为标注{@link Deterministic}
+ *
+ * @author cheney
+ * @date 2020-01-20
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Pure {
+}
@@ -0,0 +1,307 @@
+package expression.cheney.node;
+
+import expression.cheney.EvaluationContext;
+import expression.cheney.ExpressionExecutor;
+
+import java.util.Set;
+
+/**
+ * 基本类型四则运算节点
+ * {@link expression.cheney.NumericMode#DOUBLE}模式下只含+ - * / %与括号的运算表达式编译为{@link Operand}树，
+ * 运算规则与Aviator的long/double运算一致：两个操作数都是整数(Long/Integer/Short/Byte)时按long计算，
+ * 否则按double计算，只在结果处装箱一次；操作数不是上述数字(如字符串拼接、BigDecimal)时改由Aviator执行整个表达式，
+ * 组合段落中已执行的函数结果保存在临时变量槽位中，Aviator执行时不会重复执行
+ *
+ * @author cheney
+ * @date 2020-01-28
+ */
+public class ArithmeticNode implements ExpressionNode {
+
+    /**
+     * 运算表达式
+     */
+    private final String operation;
+
+    /**
+     * 运算树
+     */
+    private final Operand operand;
+
+    /**
+     * 操作数不是数字时执行的Aviator编译结果
+     */
+    private final ExpressionExecutor fallback;
+
+    /**
+     * 组合段落中函数结果对应的变量名，非组合段落时为空数组
+     */
+    private final String[] envKeys;
+
+    /**
+     * 组合段落中的函数节点
+     */
+    private final ExpressionNode[] functions;
+
+    /**
+     * 函数结果在临时变量层中的起始槽位
+     */
+    private final int slotOffset;
+
+    /**
+     * 读取的env变量
+     */
+    private final Set<String> dependencies;
+
+    public ArithmeticNode(String operation, Operand operand, ExpressionExecutor fallback, String[] envKeys,
+                          ExpressionNode[] functions, int slotOffset) {
+        this.operation = operation;
+        this.operand = operand;
+        this.fallback = fallback;
+        this.envKeys = envKeys;
+        this.functions = functions;
+        this.slotOffset = slotOffset;
+        this.dependencies = Dependencies.union(Dependencies.of(fallback, envKeys), functions);
+    }
+
+    @Override
+    public Object execute(EvaluationContext context) {
+        Object[] scratch = context.getScratch();
+        for (int i = 0; i < functions.length; i++) {
+            scratch[slotOffset + i] = OverlayEnv.UNEVALUATED;
+        }
+        try {
+            Value value = new Value();
+            operand.eval(context, value);
+            return value.integral ? (Object) value.longValue : (Object) value.doubleValue;
+        } catch (NotNumberException e) {
+            if (functions.length == 0) {
+                return fallback.execute(context.getEnv());
+            }
+            return fallback.execute(new OverlayEnv(context, envKeys, functions, slotOffset, null));
+        }
+    }
+
+    @Override
+    public Set<String> getDependencies() {
+        return dependencies;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    /**
+     * 运算结果寄存器，整数结果保存在longValue，否则保存在doubleValue，避免中间结果装箱
+     */
+    public static final class Value {
+
+        private boolean integral;
+
+        private long longValue;
+
+        private double doubleValue;
+
+        void setLong(long value) {
+            this.integral = true;
+            this.longValue = value;
+        }
+
+        void setDouble(double value) {
+            this.integral = false;
+            this.doubleValue = value;
+        }
+
+        double asDouble() {
+            return integral ? longValue : doubleValue;
+        }
+    }
+
+    /**
+     * 运算树节点
+     */
+    @FunctionalInterface
+    public interface Operand {
+
+        /**
+         * 计算
+         *
+         * @param context 执行上下文
+         * @param value   结果寄存器
+         *                操作数不是数字时抛出内部异常由{@link ArithmeticNode}改为Aviator执行
+         */
+        void eval(EvaluationContext context, Value value);
+    }
+
+    /**
+     * 整数常量
+     */
+    public static Operand constant(long constant) {
+        return (context, value) -> value.setLong(constant);
+    }
+
+    /**
+     * 小数常量
+     */
+    public static Operand constant(double constant) {
+        return (context, value) -> value.setDouble(constant);
+    }
+
+    /**
+     * env变量
+     */
+    public static Operand variable(String name) {
+        return (context, value) -> set(value, context.get(name));
+    }
+
+    /**
+     * 组合段落中的函数结果，执行后保存在槽位中
+     *
+     * @param function 函数节点
+     * @param slot     槽位
+     */
+    public static Operand function(ExpressionNode function, int slot) {
+        return (context, value) -> {
+            Object[] scratch = context.getScratch();
+            Object result = scratch[slot];
+            if (result == OverlayEnv.UNEVALUATED) {
+                result = function.execute(context);
+                scratch[slot] = result;
+            }
+            set(value, result);
+        };
+    }
+
+    public static Operand negate(Operand operand) {
+        return (context, value) -> {
+            operand.eval(context, value);
+            if (value.integral) {
+                value.setLong(-value.longValue);
+            } else {
+                value.setDouble(-value.doubleValue);
+            }
+        };
+    }
+
+    /**
+     * 二元运算，按运算符生成专用节点
+     *
+     * @param operator 运算符
+     * @param left     左操作数
+     * @param right    右操作数
+     * @return 运算节点
+     */
+    public static Operand binary(char operator, Operand left, Operand right) {
+        switch (operator) {
+            case '+':
+                return new Binary(left, right) {
+                    long apply(long a, long b) {
+                        return a + b;
+                    }
+
+                    double apply(double a, double b) {
+                        return a + b;
+                    }
+                };
+            case '-':
+                return new Binary(left, right) {
+                    long apply(long a, long b) {
+                        return a - b;
+                    }
+
+                    double apply(double a, double b) {
+                        return a - b;
+                    }
+                };
+            case '*':
+                return new Binary(left, right) {
+                    long apply(long a, long b) {
+                        return a * b;
+                    }
+
+                    double apply(double a, double b) {
+                        return a * b;
+                    }
+                };
+            case '/':
+                return new Binary(left, right) {
+                    long apply(long a, long b) {
+                        return a / b;
+                    }
+
+                    double apply(double a, double b) {
+                        return a / b;
+                    }
+                };
+            case '%':
+                return new Binary(left, right) {
+                    long apply(long a, long b) {
+                        return a % b;
+                    }
+
+                    double apply(double a, double b) {
+                        return a % b;
+                    }
+                };
+            default:
+                throw new IllegalArgumentException("unsupported operator " + operator);
+        }
+    }
+
+    /**
+     * 二元运算节点，两个操作数都是整数时按long计算，否则按double计算
+     */
+    private abstract static class Binary implements Operand {
+
+        private final Operand left;
+
+        private final Operand right;
+
+        Binary(Operand left, Operand right) {
+            this.left = left;
+            this.right = right;
+        }
+
+        abstract long apply(long a, long b);
+
+        abstract double apply(double a, double b);
+
+        @Override
+        public void eval(EvaluationContext context, Value value) {
+            left.eval(context, value);
+            boolean integral = value.integral;
+            long longValue = value.longValue;
+            double doubleValue = value.asDouble();
+            right.eval(context, value);
+            if (integral && value.integral) {
+                value.setLong(apply(longValue, value.longValue));
+            } else {
+                value.setDouble(apply(doubleValue, value.asDouble()));
+            }
+        }
+    }
+
+    /**
+     * 与Aviator一致，Long/Integer/Short/Byte按long，Double/Float按double，其余类型由Aviator执行
+     */
+    private static void set(Value value, Object number) {
+        if (number instanceof Long || number instanceof Integer || number instanceof Short || number instanceof Byte) {
+            value.setLong(((Number) number).longValue());
+        } else if (number instanceof Double || number instanceof Float) {
+            value.setDouble(((Number) number).doubleValue());
+        } else {
+            throw NotNumberException.INSTANCE;
+        }
+    }
+
+    /**
+     * 操作数不是数字，不记录堆栈
+     */
+    private static class NotNumberException extends RuntimeException {
+
+        private final static NotNumberException INSTANCE = new NotNumberException();
+
+        private NotNumberException() {
+            super("operand is not a number", null, false, false);
+        }
+    }
+}
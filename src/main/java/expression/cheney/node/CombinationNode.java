@@ -0,0 +1,109 @@
+package expression.cheney.node;
+
+import expression.cheney.EvaluationContext;
+import expression.cheney.ExpressionExecutor;
+import expression.cheney.ExpressionProfiler;
+
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * 组合段落节点
+ * 运算符、常量、原始类型与函数的组合在编译期拼接并编译为Aviator表达式，函数的执行结果以固定变量名
+ * 存放在执行上下文临时变量层中编译期分配的槽位，通过{@link OverlayEnv}代入，不写入用户传入的env。
+ * 函数在Aviator读取对应变量时才执行，&&、||、?:短路时未读取的函数不会执行
+ *
+ * @author cheney
+ * @date 2020-01-10
+ */
+public class CombinationNode implements ExpressionNode {
+
+    /**
+     * 拼接后的运算表达式
+     */
+    private final String operation;
+
+    /**
+     * 编译后的运算表达式
+     */
+    private final ExpressionExecutor executor;
+
+    /**
+     * 函数结果对应的变量名
+     */
+    private final String[] envKeys;
+
+    /**
+     * 函数节点，与envKeys一一对应
+     */
+    private final ExpressionNode[] functions;
+
+    /**
+     * 函数结果在临时变量层中的起始槽位
+     */
+    private final int slotOffset;
+
+    /**
+     * 读取的env变量
+     */
+    private final Set<String> dependencies;
+
+    public CombinationNode(String operation, ExpressionExecutor executor, String[] envKeys,
+                           ExpressionNode[] functions, int slotOffset) {
+        this.operation = operation;
+        this.executor = executor;
+        this.envKeys = envKeys;
+        this.functions = functions;
+        this.slotOffset = slotOffset;
+        this.dependencies = Dependencies.union(Dependencies.of(executor, envKeys), functions);
+    }
+
+    @Override
+    public Object execute(EvaluationContext context) {
+        return execute(context, null);
+    }
+
+    /**
+     * 执行组合段落，函数通过指定的方法求值
+     *
+     * @param context   执行上下文
+     * @param evaluator 函数求值方法，为null时直接执行函数节点
+     * @return 结果
+     */
+    public Object execute(EvaluationContext context, Function<ExpressionNode, Object> evaluator) {
+        if (ExpressionProfiler.isEnabled()) {
+            // 耗时包含组合段落中函数的耗时
+            long start = System.nanoTime();
+            try {
+                return executeOperation(context, evaluator);
+            } finally {
+                ExpressionProfiler.recordOperation(operation, System.nanoTime() - start);
+            }
+        }
+        return executeOperation(context, evaluator);
+    }
+
+    private Object executeOperation(EvaluationContext context, Function<ExpressionNode, Object> evaluator) {
+        if (functions.length == 0) {
+            return executor.execute(context.getEnv());
+        }
+        Object[] scratch = context.getScratch();
+        for (int i = 0; i < functions.length; i++) {
+            scratch[slotOffset + i] = OverlayEnv.UNEVALUATED;
+        }
+        return executor.execute(new OverlayEnv(context, envKeys, functions, slotOffset, evaluator));
+    }
+
+    @Override
+    public Set<String> getDependencies() {
+        return dependencies;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public ExpressionNode[] getFunctions() {
+        return functions;
+    }
+}
@@ -0,0 +1,37 @@
+package expression.cheney.node;
+
+import expression.cheney.EvaluationContext;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * 常量节点
+ *
+ * @author cheney
+ * @date 2020-01-10
+ */
+public class ConstantNode implements ExpressionNode {
+
+    public final static ConstantNode NULL = new ConstantNode(null);
+
+    private final Object value;
+
+    public ConstantNode(Object value) {
+        this.value = value;
+    }
+
+    @Override
+    public Object execute(EvaluationContext context) {
+        return value;
+    }
+
+    @Override
+    public Set<String> getDependencies() {
+        return Collections.emptySet();
+    }
+
+    public Object getValue() {
+        return value;
+    }
+}
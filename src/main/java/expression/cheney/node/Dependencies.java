@@ -0,0 +1,73 @@
+package expression.cheney.node;
+
+import expression.cheney.AviatorExpressionExecutor;
+import expression.cheney.ExpressionExecutor;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 节点依赖的env变量计算
+ * 依赖为null表示无法确定(如非纯函数、非Aviator编译的运算表达式)，执行结果不可复用
+ *
+ * @author cheney
+ * @date 2020-01-23
+ */
+final class Dependencies {
+
+    private Dependencies() {
+    }
+
+    /**
+     * 运算表达式读取的变量
+     * Aviator的变量名可能为a.b形式的嵌套访问，同时依赖顶层变量a
+     *
+     * @param executor 运算表达式编译结果
+     * @param excludes 不属于env的变量名
+     * @return 变量名，无法确定时为null
+     */
+    static Set<String> of(ExpressionExecutor executor, String... excludes) {
+        if (!(executor instanceof AviatorExpressionExecutor)) {
+            return null;
+        }
+        Set<String> variables = new HashSet<>();
+        for (String name : ((AviatorExpressionExecutor) executor).getExpression().getVariableNames()) {
+            variables.add(name);
+            int dot = name.indexOf('.');
+            if (dot > 0) {
+                variables.add(name.substring(0, dot));
+            }
+        }
+        for (String exclude : excludes) {
+            variables.remove(exclude);
+        }
+        return freeze(variables);
+    }
+
+    /**
+     * 合并子节点的依赖
+     *
+     * @param base  当前节点自身的依赖
+     * @param nodes 子节点
+     * @return 合并后的依赖，任一为null时为null
+     */
+    static Set<String> union(Set<String> base, ExpressionNode... nodes) {
+        if (base == null) {
+            return null;
+        }
+        Set<String> variables = new HashSet<>(base);
+        for (ExpressionNode node : nodes) {
+            Set<String> dependencies = node.getDependencies();
+            if (dependencies == null) {
+                return null;
+            }
+            variables.addAll(dependencies);
+        }
+        return freeze(variables);
+    }
+
+    private static Set<String> freeze(Set<String> variables) {
+        return variables.isEmpty() ? Collections.emptySet() : Collections.unmodifiableSet(variables);
+    }
+}
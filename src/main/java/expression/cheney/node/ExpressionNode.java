@@ -0,0 +1,32 @@
+package expression.cheney.node;
+
+import expression.cheney.EvaluationContext;
+
+import java.util.Set;
+
+/**
+ * 表达式编译结果节点
+ * 解析结果{@link expression.cheney.BaseExpressionParser}编译为不可变的节点树，
+ * 函数目标、参数类型与不定参数适配均在编译期确定，执行时不再按名称查找
+ *
+ * @author cheney
+ * @date 2020-01-10
+ */
+public interface ExpressionNode {
+
+    /**
+     * 执行节点
+     *
+     * @param context 执行上下文
+     * @return 结果
+     */
+    Object execute(EvaluationContext context);
+
+    /**
+     * 节点及其子节点读取的env变量，用于判断变量变化后执行结果能否复用
+     *
+     * @return 变量名，无法确定或结果不可复用时为null
+     */
+    Set<String> getDependencies();
+
+}
@@ -0,0 +1,148 @@
+package expression.cheney.node;
+
+import expression.cheney.AsyncExecution;
+import expression.cheney.EvaluationContext;
+import expression.cheney.ExpressionProfiler;
+import expression.cheney.func.Pure;
+import reflect.methodHolder.MethodInvoker;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 函数节点
+ * 函数调用器与参数节点在编译期绑定，参数类型为{@link java.util.function.Supplier}的参数以{@link LazyValue}延迟求值；
+ * 返回{@link CompletableFuture}的异步函数在同步执行时等待其结果
+ *
+ * @author cheney
+ * @date 2020-01-10
+ */
+public class FunctionNode implements ExpressionNode {
+
+    /**
+     * 函数名
+     */
+    private final String functionName;
+
+    /**
+     * 绑定的函数调用器
+     */
+    private final MethodInvoker invoker;
+
+    /**
+     * 参数节点
+     */
+    private final ExpressionNode[] args;
+
+    /**
+     * 延迟求值的参数，无延迟参数时为null
+     */
+    private final boolean[] lazyArgs;
+
+    /**
+     * 读取的env变量，非{@link Pure}函数为null
+     */
+    private final Set<String> dependencies;
+
+    /**
+     * 是否为返回CompletableFuture的异步函数
+     */
+    private final boolean async;
+
+    /**
+     * @param functionName 函数名
+     * @param invoker      函数调用器
+     * @param args         参数节点
+     * @param lazyArgs     延迟求值的参数，无延迟参数时为null
+     * @param pure         是否为{@link Pure}函数，重载函数为所有候选方法都是纯函数
+     * @param async        是否为返回CompletableFuture的异步函数，重载函数为所有候选方法都返回CompletableFuture
+     */
+    public FunctionNode(String functionName, MethodInvoker invoker, ExpressionNode[] args, boolean[] lazyArgs,
+                        boolean pure, boolean async) {
+        this.functionName = functionName;
+        this.invoker = invoker;
+        this.args = args;
+        this.lazyArgs = lazyArgs;
+        this.dependencies = pure ? Dependencies.union(Collections.emptySet(), args) : null;
+        this.async = async;
+    }
+
+    @Override
+    public Object execute(EvaluationContext context) {
+        Object result = ExpressionProfiler.isEnabled() ? executeProfiled(context) : invoker.invoke(loadArgs(context));
+        return async ? AsyncExecution.join(result) : result;
+    }
+
+    private Object[] loadArgs(EvaluationContext context) {
+        Object[] values = new Object[args.length];
+        for (int i = 0; i < args.length; i++) {
+            values[i] = lazyArgs != null && lazyArgs[i] ? new LazyValue(args[i], context) : args[i].execute(context);
+        }
+        return values;
+    }
+
+    /**
+     * 执行并记录耗时，参数求值耗时包含嵌套函数的耗时
+     */
+    private Object executeProfiled(EvaluationContext context) {
+        long start = System.nanoTime();
+        Object[] values = loadArgs(context);
+        long argEnd = System.nanoTime();
+        try {
+            return invoker.invoke(values);
+        } finally {
+            ExpressionProfiler.recordFunction(functionName, argEnd - start, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * 以已求值的参数执行函数
+     *
+     * @param values 参数值
+     * @return 函数返回值
+     */
+    public Object invoke(Object[] values) {
+        Object result = invoker.invoke(values);
+        return async ? AsyncExecution.join(result) : result;
+    }
+
+    /**
+     * 以已求值的参数执行函数，异步函数不等待结果
+     *
+     * @param values 参数值
+     * @return 函数返回值
+     */
+    @SuppressWarnings("unchecked")
+    public CompletableFuture<Object> invokeAsync(Object[] values) {
+        Object result = invoker.invoke(values);
+        if (async) {
+            return result == null ? CompletableFuture.completedFuture(null) : (CompletableFuture<Object>) result;
+        }
+        return CompletableFuture.completedFuture(result);
+    }
+
+    public boolean isAsync() {
+        return async;
+    }
+
+    /**
+     * 是否有延迟求值的参数
+     */
+    public boolean hasLazyArgs() {
+        return lazyArgs != null;
+    }
+
+    @Override
+    public Set<String> getDependencies() {
+        return dependencies;
+    }
+
+    public String getFunctionName() {
+        return functionName;
+    }
+
+    public ExpressionNode[] getArgs() {
+        return args;
+    }
+}
@@ -0,0 +1,38 @@
+package expression.cheney.node;
+
+import expression.cheney.EvaluationContext;
+
+import java.util.function.Supplier;
+
+/**
+ * 延迟求值参数
+ * 函数参数类型为{@link Supplier}时传入，调用{@link #get()}时才执行参数节点，执行结果缓存，
+ * 函数可以只执行需要的分支
+ *
+ * @author cheney
+ * @date 2020-01-18
+ */
+public class LazyValue implements Supplier<Object> {
+
+    private final ExpressionNode node;
+
+    private final EvaluationContext context;
+
+    private boolean evaluated;
+
+    private Object value;
+
+    public LazyValue(ExpressionNode node, EvaluationContext context) {
+        this.node = node;
+        this.context = context;
+    }
+
+    @Override
+    public Object get() {
+        if (!evaluated) {
+            value = node.execute(context);
+            evaluated = true;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,57 @@
+package expression.cheney.node;
+
+import expression.cheney.EvaluationContext;
+
+import java.util.Set;
+
+/**
+ * 单次执行内复用结果的节点
+ * 多个表达式中结构相同的纯函数调用或变量编译为同一个节点，结果缓存在执行上下文临时变量层中编译期分配的槽位，
+ * 同一执行上下文中只执行一次
+ *
+ * @author cheney
+ * @date 2020-01-22
+ */
+public class MemoNode implements ExpressionNode {
+
+    /**
+     * 执行结果为null的标识，槽位为null表示未执行
+     */
+    private final static Object NULL_VALUE = new Object();
+
+    /**
+     * 被复用的节点
+     */
+    private final ExpressionNode node;
+
+    /**
+     * 结果所在槽位
+     */
+    private final int slot;
+
+    public MemoNode(ExpressionNode node, int slot) {
+        this.node = node;
+        this.slot = slot;
+    }
+
+    @Override
+    public Object execute(EvaluationContext context) {
+        Object[] scratch = context.getScratch();
+        Object value = scratch[slot];
+        if (value == null) {
+            value = node.execute(context);
+            scratch[slot] = value == null ? NULL_VALUE : value;
+            return value;
+        }
+        return value == NULL_VALUE ? null : value;
+    }
+
+    @Override
+    public Set<String> getDependencies() {
+        return node.getDependencies();
+    }
+
+    public ExpressionNode getNode() {
+        return node;
+    }
+}
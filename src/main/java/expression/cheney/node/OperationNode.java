@@ -0,0 +1,60 @@
+package expression.cheney.node;
+
+import expression.cheney.EvaluationContext;
+import expression.cheney.ExpressionExecutor;
+import expression.cheney.ExpressionProfiler;
+
+import java.util.Set;
+
+/**
+ * 运算表达式节点
+ * 含运算符的原始类型表达式在编译期交由Aviator编译，执行时直接执行编译结果
+ *
+ * @author cheney
+ * @date 2020-01-10
+ */
+public class OperationNode implements ExpressionNode {
+
+    /**
+     * 运算表达式
+     */
+    private final String expression;
+
+    /**
+     * 编译后的运算表达式
+     */
+    private final ExpressionExecutor executor;
+
+    /**
+     * 读取的env变量
+     */
+    private final Set<String> dependencies;
+
+    public OperationNode(String expression, ExpressionExecutor executor) {
+        this.expression = expression;
+        this.executor = executor;
+        this.dependencies = Dependencies.of(executor);
+    }
+
+    @Override
+    public Object execute(EvaluationContext context) {
+        if (ExpressionProfiler.isEnabled()) {
+            long start = System.nanoTime();
+            try {
+                return executor.execute(context.getEnv());
+            } finally {
+                ExpressionProfiler.recordOperation(expression, System.nanoTime() - start);
+            }
+        }
+        return executor.execute(context.getEnv());
+    }
+
+    @Override
+    public Set<String> getDependencies() {
+        return dependencies;
+    }
+
+    public String getExpression() {
+        return expression;
+    }
+}
@@ -0,0 +1,118 @@
+package expression.cheney.node;
+
+import expression.cheney.EvaluationContext;
+
+import java.util.AbstractMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * 单次执行的变量覆盖层
+ * 将组合段落中函数的执行结果以固定变量名覆盖在只读的基础env之上，值存放于{@link EvaluationContext}的临时变量层，
+ * 不修改用户传入的Map；函数在第一次读取对应变量时才执行
+ *
+ * @author cheney
+ * @date 2020-01-13
+ */
+public class OverlayEnv extends AbstractMap<String, Object> {
+
+    /**
+     * 槽位未执行标识
+     */
+    final static Object UNEVALUATED = new Object();
+
+    private final EvaluationContext context;
+
+    /**
+     * 用户传入的env，只读
+     */
+    private final Map<String, Object> env;
+
+    /**
+     * 覆盖的变量名，编译期intern
+     */
+    private final String[] keys;
+
+    /**
+     * 覆盖变量对应的函数节点
+     */
+    private final ExpressionNode[] functions;
+
+    /**
+     * 临时变量层
+     */
+    private final Object[] scratch;
+
+    /**
+     * 覆盖变量在临时变量层中的起始槽位
+     */
+    private final int offset;
+
+    /**
+     * 函数求值方法，为null时直接执行函数节点
+     */
+    private final Function<ExpressionNode, Object> evaluator;
+
+    public OverlayEnv(EvaluationContext context, String[] keys, ExpressionNode[] functions, int offset,
+                      Function<ExpressionNode, Object> evaluator) {
+        this.context = context;
+        this.env = context.getEnv();
+        this.keys = keys;
+        this.functions = functions;
+        this.scratch = context.getScratch();
+        this.offset = offset;
+        this.evaluator = evaluator;
+    }
+
+    @Override
+    public Object get(Object key) {
+        int index = indexOf(key);
+        if (index >= 0) {
+            return valueAt(index);
+        }
+        return env == null ? null : env.get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOf(key) >= 0 || (env != null && env.containsKey(key));
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        // 遍历场景极少，合并为新的Map返回
+        Map<String, Object> merged = env == null ? new HashMap<>() : new HashMap<>(env);
+        for (int i = 0; i < keys.length; i++) {
+            merged.put(keys[i], valueAt(i));
+        }
+        return merged.entrySet();
+    }
+
+    /**
+     * 读取覆盖变量，未执行时执行对应函数
+     */
+    private Object valueAt(int index) {
+        Object value = scratch[offset + index];
+        if (value == UNEVALUATED) {
+            value = evaluator == null ? functions[index].execute(context) : evaluator.apply(functions[index]);
+            scratch[offset + index] = value;
+        }
+        return value;
+    }
+
+    private int indexOf(Object key) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] == key) {
+                return i;
+            }
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i].equals(key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,56 @@
+package expression.cheney.node;
+
+import expression.cheney.EvaluationContext;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * 变量节点
+ * 优先从env中取值，取不到时执行编译期确定的备用节点(运算表达式或基本类型常量)
+ *
+ * @author cheney
+ * @date 2020-01-10
+ */
+public class VariableNode implements ExpressionNode {
+
+    /**
+     * 变量名
+     */
+    private final String name;
+
+    /**
+     * env中无此变量时执行的节点
+     */
+    private final ExpressionNode fallback;
+
+    /**
+     * 读取的env变量
+     */
+    private final Set<String> dependencies;
+
+    public VariableNode(String name, ExpressionNode fallback) {
+        this.name = name;
+        this.fallback = fallback;
+        this.dependencies = Dependencies.union(Collections.singleton(name), fallback);
+    }
+
+    @Override
+    public Object execute(EvaluationContext context) {
+        Object value = context.get(name);
+        return value != null ? value : fallback.execute(context);
+    }
+
+    @Override
+    public Set<String> getDependencies() {
+        return dependencies;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public ExpressionNode getFallback() {
+        return fallback;
+    }
+}
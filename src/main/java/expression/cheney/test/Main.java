@@ -1,12 +1,26 @@
 package expression.cheney.test;
 
 import expression.cheney.*;
+import org.junit.Assert;
 import org.junit.Test;
+import reflect.methodHolder.DefaultMethodHolderFactory;
 
 import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * @author cheney
@@ -174,4 +188,428 @@ public class Main {
         env2.put("团长佣金", "2");
         System.out.println(expressionExecutor2.execute(env2));
     }
+
+    @Test
+    public void test14() {
+        ReflectExpressionParser expressionParser = ReflectExpressionParser.getInstance(
+                new DefaultMethodHolderFactory(), Collections.singleton(TestFunction.class));
+        expressionParser.setCacheCapacity(2);
+        HashMap<String, Object> env = new HashMap<>();
+        env.put("a", 1);
+        for (int i = 0; i < 3; i++) {
+            System.out.println(expressionParser.parseExpressionWithCache("abs(a)+" + i).execute(env));
+            System.out.println(expressionParser.parseExpressionWithCache("abs(a)+" + i).execute(env));
+        }
+        ExpressionCache.CacheStats stats = expressionParser.getCacheStats();
+        System.out.println(stats);
+        Assert.assertEquals(3, stats.getHitCount());
+        Assert.assertEquals(3, stats.getMissCount());
+        Assert.assertEquals(1, stats.getEvictionCount());
+    }
+
+    @Test
+    public void test15() {
+        ExpressionParser expressionParser = ReflectExpressionParser.getInstance();
+        ExpressionExecutor expressionExecutor = expressionParser.parseExpression("output(abs(a)+abs(b)*2)");
+        HashMap<String, Object> env = new HashMap<>();
+        env.put("a", -1);
+        env.put("b", -2);
+        Assert.assertEquals(0, new BigDecimal(5).compareTo((BigDecimal) expressionExecutor.execute(env)));
+        // 组合段落的函数结果不写入用户env
+        Assert.assertEquals(2, env.size());
+    }
+
+    @Test
+    public void test16() throws Exception {
+        ExpressionParser expressionParser = ReflectExpressionParser.getInstance();
+        ExpressionExecutor expressionExecutor = expressionParser.parseExpression(
+                "ifs(contains(a,'x') && contains(b,'b'),abs(c)+abs(d),true,abs(c)-abs(d))");
+        Map<String, Object> source = new HashMap<>();
+        source.put("a", "testx");
+        source.put("b", "testb");
+        source.put("c", -3);
+        source.put("d", 2);
+        // 多线程共享同一个只读env
+        Map<String, Object> env = Collections.unmodifiableMap(source);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<Object>> futures = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            futures.add(pool.submit(() -> expressionExecutor.execute(env)));
+        }
+        for (Future<Object> future : futures) {
+            Assert.assertEquals(0, new BigDecimal(5).compareTo((BigDecimal) future.get()));
+        }
+        pool.shutdown();
+        Assert.assertEquals(4, source.size());
+    }
+
+    @Test
+    public void test17() {
+        ExpressionParser expressionParser = ReflectExpressionParser.getInstance();
+        HashMap<String, Object> env = new HashMap<>();
+        env.put("a", "test");
+        TestFunction.TRACE_COUNT.set(0);
+        // ifs只执行命中的分支
+        Assert.assertEquals(1, expressionParser.parseExpression("ifs(contains(a,'t'),trace(1),true,trace(2))").execute(env));
+        Assert.assertEquals(1, TestFunction.TRACE_COUNT.get());
+        // 组合段落短路，未读取的函数不执行
+        Assert.assertEquals(false, expressionParser.parseExpression("contains(a,'x') && trace(true)").execute(env));
+        Assert.assertEquals(true, expressionParser.parseExpression("or(contains(a,'t'),trace(false))").execute(env));
+        Assert.assertEquals(1, TestFunction.TRACE_COUNT.get());
+        Assert.assertEquals(true, expressionParser.parseExpression("contains(a,'t') && trace(true)").execute(env));
+        Assert.assertEquals(2, TestFunction.TRACE_COUNT.get());
+    }
+
+    @Test
+    public void test18() {
+        ExpressionParser expressionParser = ReflectExpressionParser.getInstance();
+        HashMap<String, Object> env = new HashMap<>();
+        env.put("a", "ABCDEF");
+        // 参数全部为常量的纯函数编译期折叠
+        BaseExpressionExecutor folded = (BaseExpressionExecutor) expressionParser.parseExpression("substring('ABCDEF',0,3) + '-' + (1+2)");
+        Assert.assertEquals(3, folded.getCompiled().getFoldedNodeCount());
+        Assert.assertEquals("ABC-3", folded.execute(env));
+        // 含变量时不折叠
+        BaseExpressionExecutor notFolded = (BaseExpressionExecutor) expressionParser.parseExpression("substring(a,0,3)");
+        Assert.assertEquals(0, notFolded.getCompiled().getFoldedNodeCount());
+        Assert.assertEquals("ABC", notFolded.execute(env));
+        // 非纯函数不折叠
+        TestFunction.TRACE_COUNT.set(0);
+        ExpressionExecutor traced = expressionParser.parseExpression("trace(1)");
+        traced.execute(env);
+        traced.execute(env);
+        Assert.assertEquals(2, TestFunction.TRACE_COUNT.get());
+        // 结果为可变容器时不折叠，每次执行返回新的实例
+        ExpressionExecutor json = expressionParser.parseExpression("jsonToMap('{\"a\":1}')");
+        @SuppressWarnings("unchecked")
+        Map<String, Object> first = (Map<String, Object>) json.execute(env);
+        first.put("a", 999);
+        Assert.assertNotSame(first, json.execute(env));
+        Assert.assertEquals(1, ((Map<?, ?>) json.execute(env)).get("a"));
+    }
+
+    @Test
+    public void test19() {
+        ExpressionExecutor executor = ReflectExpressionParser.getInstance().parseExpression("substring(a,0,b) + '-' + (b+1)");
+        int rowCount = 5000;
+        List<Map<String, Object>> envs = new ArrayList<>();
+        String[] as = new String[rowCount];
+        Integer[] bs = new Integer[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+            HashMap<String, Object> env = new HashMap<>();
+            as[i] = "row" + i;
+            bs[i] = i % 3 + 1;
+            env.put("a", as[i]);
+            env.put("b", bs[i]);
+            envs.add(env);
+        }
+        Map<String, Object[]> columns = new HashMap<>();
+        columns.put("a", as);
+        columns.put("b", bs);
+        // 超过阈值并行执行，结果顺序与输入一致
+        List<Object> rowResults = executor.executeBatch(envs);
+        List<Object> columnResults = executor.executeBatch(columns);
+        Assert.assertEquals(rowCount, rowResults.size());
+        for (int i = 0; i < rowCount; i++) {
+            Object expect = executor.execute(envs.get(i));
+            Assert.assertEquals(expect, rowResults.get(i));
+            Assert.assertEquals(expect, columnResults.get(i));
+        }
+        Assert.assertEquals("r-2", rowResults.get(0));
+    }
+
+    @Test
+    public void test20() {
+        List<String> expressions = new ArrayList<>();
+        expressions.add("output(pureTrace(a) + '-1')");
+        expressions.add("substring(pureTrace(a),0,2)");
+        expressions.add("ifs(contains(pureTrace(a),'b'),trace(b),true,'none')");
+        expressions.add("a");
+        RuleSet ruleSet = ReflectExpressionParser.getInstance().compileRuleSet(expressions);
+        Assert.assertTrue(ruleSet.getSharedNodeCount() >= 2);
+        HashMap<String, Object> env = new HashMap<>();
+        env.put("a", "abc");
+        env.put("b", 1);
+        TestFunction.TRACE_COUNT.set(0);
+        List<Object> results = ruleSet.execute(env);
+        // pureTrace(a)只执行一次，非纯函数trace不合并
+        Assert.assertEquals(2, TestFunction.TRACE_COUNT.get());
+        Assert.assertEquals("abc-1", results.get(0));
+        Assert.assertEquals("ab", results.get(1));
+        Assert.assertEquals(1, results.get(2));
+        Assert.assertEquals("abc", results.get(3));
+        // 确定性函数jsonToMap在同一env内合并，不同env间返回新的实例
+        ruleSet = ReflectExpressionParser.getInstance().compileRuleSet(Arrays.asList("jsonToMap(x)", "output(jsonToMap(x))"));
+        env.put("x", "{\"a\":1}");
+        results = ruleSet.execute(env);
+        Assert.assertSame(results.get(0), results.get(1));
+        Assert.assertNotSame(results.get(0), ruleSet.execute(env).get(0));
+    }
+
+    @Test
+    public void test21() {
+        BaseExpressionExecutor executor = (BaseExpressionExecutor) ReflectExpressionParser.getInstance()
+                .parseExpression("substring(pureTrace(a),0,2) + pureTrace(b) + trace(c)");
+        IncrementalCache cache = executor.newIncrementalCache();
+        HashMap<String, Object> env = new HashMap<>();
+        env.put("a", "abc");
+        env.put("b", "x");
+        env.put("c", "1");
+        TestFunction.TRACE_COUNT.set(0);
+        Assert.assertEquals("abx1", executor.executeIncremental(env, cache, null));
+        Assert.assertEquals(3, TestFunction.TRACE_COUNT.get());
+        // 只有b变化，pureTrace(a)复用上一次结果，非纯函数trace总是执行
+        env.put("b", "y");
+        TestFunction.TRACE_COUNT.set(0);
+        Assert.assertEquals("aby1", executor.executeIncremental(env, cache, Collections.singleton("b")));
+        Assert.assertEquals(2, TestFunction.TRACE_COUNT.get());
+        // 无变化
+        TestFunction.TRACE_COUNT.set(0);
+        Assert.assertEquals("aby1", executor.executeIncremental(env, cache, Collections.emptySet()));
+        Assert.assertEquals(1, TestFunction.TRACE_COUNT.get());
+        Assert.assertEquals(executor.execute(env), executor.executeIncremental(env, cache, Collections.singleton("a")));
+    }
+
+    @Test
+    public void test22() {
+        ExpressionExecutor executor = ReflectExpressionParser.getInstance().parseExpression("substring(trace(a),0,2) + '-' + (b+1)");
+        HashMap<String, Object> env = new HashMap<>();
+        env.put("a", "abc");
+        env.put("b", 1);
+        ExpressionProfiler.reset();
+        // 关闭时不统计
+        executor.execute(env);
+        Assert.assertTrue(ExpressionProfiler.snapshot().getFunctions().isEmpty());
+        ExpressionProfiler.setEnabled(true);
+        try {
+            for (int i = 0; i < 100; i++) {
+                executor.execute(env);
+            }
+            AviatorExpressionParser.getInstance().parseExpressionWithCache("b+2");
+            AviatorExpressionParser.getInstance().parseExpressionWithCache("b+2");
+        } finally {
+            ExpressionProfiler.setEnabled(false);
+        }
+        ExpressionProfiler.Snapshot snapshot = ExpressionProfiler.snapshot();
+        ExpressionProfiler.Profile substring = snapshot.getFunctions().get("substring");
+        Assert.assertEquals(100, substring.getCallCount());
+        Assert.assertEquals(100, snapshot.getFunctions().get("trace").getCallCount());
+        Assert.assertTrue(substring.getTotalNanos() >= substring.getArgNanos());
+        Assert.assertTrue(substring.getP99Nanos() > 0);
+        Assert.assertEquals(1, snapshot.getOperations().size());
+        Assert.assertEquals(1, snapshot.getAviatorCacheHitCount());
+        Assert.assertEquals(1, snapshot.getAviatorCompileCount());
+        System.out.println(snapshot);
+    }
+
+    @Test
+    public void test23() throws Exception {
+        List<String> expressions = new ArrayList<>();
+        expressions.add("substring(a,0,2) + '-' + (b+1)");
+        expressions.add("ifs(contains(a,'b'),toJson(b),true,'none')");
+        expressions.add("a+b");
+        expressions.add("null");
+        HashMap<String, Object> env = new HashMap<>();
+        env.put("a", "abc");
+        env.put("b", 1);
+        Path file = Files.createTempFile("expression", ".plan");
+        try {
+            ReflectExpressionParser parser = ReflectExpressionParser.getInstance(new DefaultMethodHolderFactory(),
+                    Collections.singleton(TestFunction.class));
+            ExpressionPlanStore store = new ExpressionPlanStore(parser);
+            Assert.assertEquals(4, store.write(expressions, file));
+            Map<String, ExpressionExecutor> executors = store.load(file);
+            Assert.assertEquals(expressions, new ArrayList<>(executors.keySet()));
+            for (String expression : expressions) {
+                Assert.assertEquals(parser.parseExpression(expression).execute(env), executors.get(expression).execute(env));
+            }
+            // 加载后直接命中缓存
+            Assert.assertSame(executors.get(expressions.get(0)), parser.parseExpressionWithCache(expressions.get(0)));
+            // 函数集合变化后仍可加载
+            parser.addFunctionClass(ParseBenchmark.class);
+            Assert.assertEquals("ab-2", store.load(file).get(expressions.get(0)).execute(env));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void test24() throws Exception {
+        ExpressionParser expressionParser = ReflectExpressionParser.getInstance();
+        HashMap<String, Object> env = new HashMap<>();
+        env.put("a", "a");
+        env.put("b", "b");
+        // 同步执行时等待异步函数结果
+        Assert.assertEquals("a-b", expressionParser.parseExpression("asyncSleep(a,10) + '-' + b").execute(env));
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            // 同级参数并发求值
+            ExpressionExecutor sleeps = expressionParser.parseExpression("replace(sleep(a,300),sleep(b,300),asyncSleep(a,300))");
+            long start = System.currentTimeMillis();
+            Assert.assertEquals("a", sleeps.executeAsync(env, executor, 2, TimeUnit.SECONDS).get());
+            Assert.assertTrue(System.currentTimeMillis() - start < 800);
+            // 超时
+            try {
+                expressionParser.parseExpression("asyncSleep(a,1000)").executeAsync(env, executor, 50, TimeUnit.MILLISECONDS).get();
+                Assert.fail();
+            } catch (ExecutionException e) {
+                Assert.assertTrue(e.getCause() instanceof TimeoutException);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void test25() {
+        ReflectExpressionParser parser = ReflectExpressionParser.getInstance(new DefaultMethodHolderFactory(),
+                Collections.singleton(TestFunction.class));
+        HashMap<String, Object> env = new HashMap<>();
+        env.put("a", "1.5");
+        env.put("b", 3);
+        env.put("c", "x");
+        Assert.assertEquals(new BigDecimal("3.75"), parser.parseExpression("to_number(a)*2+b/4").execute(env));
+        parser.setNumericMode(NumericMode.DOUBLE);
+        env.put("d", 1.5);
+        env.put("x", 7L);
+        env.put("y", 2L);
+        env.put("s", "abcdef");
+        try {
+            // 与Aviator相同，整数之间按long计算，含小数时按double计算
+            Assert.assertEquals(3.0, parser.parseExpression("d*2+b/4").execute(env));
+            Assert.assertEquals(3.75, parser.parseExpression("d*2+b/4.0").execute(env));
+            Assert.assertEquals(-5L, parser.parseExpression("-(b+2)").execute(env));
+            Assert.assertEquals(3L, parser.parseExpression("7/2").execute(env));
+            Assert.assertEquals(1L, parser.parseExpression("x%y").execute(env));
+            Assert.assertEquals(3.5, parser.parseExpression("x/2.0").execute(env));
+            Assert.assertEquals(9007199254740993L, parser.parseExpression("9007199254740993+0").execute(env));
+            // 运算节点与Aviator执行的比较表达式结果一致
+            Assert.assertEquals(false, parser.parseExpression("7/2 > 3").execute(env));
+            Assert.assertEquals(false, parser.parseExpression("x/y > 3").execute(env));
+            Assert.assertEquals(parser.parseExpression("x/y").execute(env),
+                    AviatorExpressionParser.getInstance(NumericMode.DOUBLE).parseExpression("x/y").execute(env));
+            // BigDecimal操作数由Aviator执行
+            Assert.assertEquals(AviatorExpressionParser.getInstance(NumericMode.DOUBLE).parseExpression("a1*2").execute(
+                    Collections.singletonMap("a1", new BigDecimal("1.5"))), parser.parseExpression("to_number(a)*2").execute(env));
+            // 整数字面量为Integer，可传入int参数
+            Assert.assertEquals(7, parser.parseExpression("output(7)").execute(env));
+            Assert.assertEquals("abc", parser.parseExpression("substring(s,0,3)").execute(env));
+            Assert.assertEquals("bc", parser.parseExpression("substring('abcdef',1,2)").execute(env));
+            Assert.assertEquals("abc", parser.parseExpression("substring(s,0,b)").execute(env));
+            // 操作数不是数字时由Aviator执行，函数不重复执行
+            TestFunction.TRACE_COUNT.set(0);
+            Assert.assertEquals("x3", parser.parseExpression("trace(c)+b").execute(env));
+            Assert.assertEquals(1, TestFunction.TRACE_COUNT.get());
+            Assert.assertEquals(true, parser.parseExpression("to_number(a)>b/2").execute(env));
+        } finally {
+            parser.setNumericMode(NumericMode.DECIMAL);
+        }
+    }
+
+    @Test
+    public void test26() {
+        ReflectExpressionParser parser = ReflectExpressionParser.getInstance(new DefaultMethodHolderFactory(),
+                Collections.singleton(TestFunction.class));
+        HashMap<String, Object> env = new HashMap<>();
+        env.put("a", "abc");
+        ExpressionExecutor substring = parser.parseExpressionWithCache("substring(a,1)");
+        long version = parser.getFunctionVersion();
+        parser.addFunctionClass(HotFunction.class);
+        Assert.assertEquals(version + 1, parser.getFunctionVersion());
+        ExpressionExecutor hot = parser.parseExpressionWithCache("hot(a)");
+        Assert.assertEquals("hot:abc", hot.execute(env));
+        // 只失效引用了变化函数的表达式
+        parser.removeFunctionClass(HotFunction.class);
+        Assert.assertEquals(version + 2, parser.getFunctionVersion());
+        Assert.assertSame(substring, parser.parseExpressionWithCache("substring(a,1)"));
+        Assert.assertEquals(1, parser.getCacheStats().getSize());
+        // 已获取的执行器仍可执行，重新解析的执行器找不到函数
+        Assert.assertEquals("hot:abc", hot.execute(env));
+        try {
+            parser.parseExpressionWithCache("hot(a)").execute(env);
+            Assert.fail();
+        } catch (RuntimeException e) {
+            // 函数已移除
+        }
+        // 重新添加后引用该函数的执行器被清除
+        parser.addFunctionClass(HotFunction.class);
+        Assert.assertEquals("hot:abc", parser.parseExpressionWithCache("hot(a)").execute(env));
+    }
+
+    public static class HotFunction {
+
+        public static String hot(Object value) {
+            return "hot:" + value;
+        }
+    }
+
+    @Test
+    public void test27() {
+        DefaultMethodHolderFactory holderFactory = new DefaultMethodHolderFactory();
+        holderFactory.registeredInstance(new LookupFunction(Collections.singletonMap("a", "甲")));
+        ReflectExpressionParser parser = ReflectExpressionParser.getInstance(holderFactory,
+                Collections.singleton(LookupFunction.class));
+        HashMap<String, Object> env = new HashMap<>();
+        env.put("key", "a");
+        Assert.assertEquals("甲", parser.parseExpression("lookup(key)").execute(env));
+        // 同一实例的状态在表达式之间保留
+        Assert.assertEquals("甲/2", parser.parseExpression("lookup(key)+'/'+hits()").execute(env));
+        // 静态方法同样可调用
+        Assert.assertEquals("-", parser.parseExpression("dash()").execute(env));
+    }
+
+    @Test
+    public void test28() {
+        ExpressionParser expressionParser = ReflectExpressionParser.getInstance();
+        HashMap<String, Object> env = new HashMap<>();
+        env.put("a", "abc");
+        env.put("b", true);
+        // 所有重载均为纯函数时，常量参数调用被折叠
+        BaseExpressionExecutor folded = (BaseExpressionExecutor) expressionParser.parseExpression("pureOverload('x')");
+        Assert.assertTrue(folded.getCompiled().getFoldedNodeCount() > 0);
+        TestFunction.TRACE_COUNT.set(0);
+        Assert.assertEquals("string:x", folded.execute(env));
+        Assert.assertEquals(0, TestFunction.TRACE_COUNT.get());
+        // 规则集中合并重载纯函数的公共调用
+        RuleSet ruleSet = ReflectExpressionParser.getInstance().compileRuleSet(Arrays.asList("pureOverload(a)", "output(pureOverload(b))",
+                "output(pureOverload(a))"));
+        TestFunction.TRACE_COUNT.set(0);
+        Assert.assertEquals(Arrays.asList("string:abc", "boolean:true", "string:abc"), ruleSet.execute(env));
+        Assert.assertEquals(2, TestFunction.TRACE_COUNT.get());
+        // 所有重载在同一位置均为Supplier时延迟求值，只执行选中的分支
+        TestFunction.TRACE_COUNT.set(0);
+        Assert.assertEquals("abc", expressionParser.parseExpression("choose(b,trace(a),trace('no'))").execute(env));
+        Assert.assertEquals("no", expressionParser.parseExpression("choose(a,trace(a),trace('no'))").execute(env));
+        Assert.assertEquals(2, TestFunction.TRACE_COUNT.get());
+        // 所有重载均返回CompletableFuture时按异步函数执行
+        Assert.assertEquals("string:abc-boolean:true",
+                expressionParser.parseExpression("asyncOverload(a) + '-' + asyncOverload(b)").execute(env));
+    }
+
+    /**
+     * 有状态的函数提供者
+     */
+    public static class LookupFunction {
+
+        private final Map<String, String> table;
+
+        private int hits;
+
+        public LookupFunction(Map<String, String> table) {
+            this.table = table;
+        }
+
+        public String lookup(String key) {
+            hits++;
+            return table.get(key);
+        }
+
+        public int hits() {
+            return hits;
+        }
+
+        public static String dash() {
+            return "-";
+        }
+    }
 }
@@ -0,0 +1,201 @@
+package expression.cheney.test;
+
+import expression.cheney.ExpressionParseException;
+import expression.cheney.ReflectExpressionParser;
+import org.junit.Assert;
+import org.junit.Test;
+import reflect.methodHolder.DefaultMethodHolderFactory;
+
+import java.util.Collections;
+
+/**
+ * 解析吞吐量对比：单次扫描解析器与1.8解析逻辑
+ * 表达式为多层嵌套的ifs(...)
+ *
+ * @author cheney
+ * @date 2020-01-16
+ */
+public class ParseBenchmark {
+
+    private final static int WARM_UP = 2000;
+
+    private final static int ITERATIONS = 20000;
+
+    /**
+     * {@link Main}中使用的表达式
+     */
+    private final static String[] EXPRESSIONS = {
+            "print(toJson(date_format(date,noArg())))",
+            "println(ifs(a>b-a,c,a1>b1,c1))",
+            "ifs(!(a>b-a),(c1-c),(a1>b1),c-c1)",
+            "a>b",
+            "println(a+b)",
+            "print(toJson(a)+toJson(2))",
+            "print(contains(a,'x') && contains(b,'b') || ! false &&contains(b,'b') )",
+            "print(abs(-a)-1+(2-1)+abs(-5)+ (-a))",
+            "(业务类型=='在线支付'||业务类型=='交易付款')||(业务类型=='转账'&&contains(备注,'基金代发任务'))||(业务类型=='交易分账'&&contains(备注,'境内商户结算'))",
+            "replace('10.00元','元','')",
+            "nil",
+            "ifs(业务类型=='其它'&&contains(备注,'天猫物流破损险'),substring(备注,21,18),业务类型=='转账'&&contains(备注,'基金代发任务'),substring(备注,5,18),业务类型=='其它'&&(contains(备注,'售后支付')||contains(备注,'商家保证金理赔')||contains(备注,'保证金退款'))||(业务类型=='转账'&&(contains(备注,'天天特卖')||contains(备注,'售后退款'))),substring(商户订单号,5,18),true,业务基础订单号)",
+            "to_number(服务费)+to_number(团长佣金)",
+            "output(abs(a)+abs(b)*2)",
+            "ifs(contains(a,'x') && contains(b,'b'),abs(c)+abs(d),true,abs(c)-abs(d))",
+            "ifs(contains(a,'t'),trace(1),true,trace(2))",
+            "contains(a,'x') && trace(true)",
+            "or(contains(a,'t'),trace(false))",
+            "contains(a,'t') && trace(true)",
+            "substring('ABCDEF',0,3) + '-' + (1+2)",
+            "substring(a,0,3)",
+            "trace(1)",
+            "substring(a,0,b) + '-' + (b+1)",
+            "output(pureTrace(a) + '-1')",
+            "substring(pureTrace(a),0,2)",
+            "ifs(contains(pureTrace(a),'b'),trace(b),true,'none')",
+            "a",
+            "substring(pureTrace(a),0,2) + pureTrace(b) + trace(c)",
+            "substring(trace(a),0,2) + '-' + (b+1)",
+            "b+2",
+            "substring(a,0,2) + '-' + (b+1)",
+            "ifs(contains(a,'b'),toJson(b),true,'none')",
+            "a+b",
+            "null",
+            "asyncSleep(a,10) + '-' + b",
+            "replace(sleep(a,300),sleep(b,300),asyncSleep(a,300))",
+            "asyncSleep(a,1000)",
+            "to_number(a)*2+b/4",
+            "-(b+2)",
+            "output(7)",
+            "trace(c)+b",
+            "to_number(a)>b/2",
+            "substring(a,1)",
+            "hot(a)",
+            "lookup(key)",
+            "lookup(key)+'/'+hits()",
+            "dash()",
+            "abs(a)+1",
+            "a>b-a"
+    };
+
+    /**
+     * 1.8解析逻辑的边界输入：'('前不是ASCII字母时不视为函数，以及1.8能解析但不符合单次扫描语法的表达式
+     */
+    private final static String[] EDGE_EXPRESSIONS = {
+            "math.log10(x)",
+            "md5(x)",
+            "f1(a)+1",
+            "汉字(a)",
+            "toJson(math.log10(x))",
+            "(f1(a))",
+            "ab (a)",
+            "toJson(a) toJson(b)",
+            "f(a,)",
+            "f(a)(b)",
+            "x>1?toJson(a):toJson(b)",
+            "a?f(x)",
+            "toJson('it''s')",
+            "toJson('a(')",
+            "'a(b'",
+            "toJson(a)\t+ toJson(b)"
+    };
+
+    @Test
+    public void benchmark() {
+        ReflectExpressionParser parser = ReflectExpressionParser.getInstance(new DefaultMethodHolderFactory(),
+                Collections.singleton(TestFunction.class));
+        for (int depth : new int[]{1, 5, 10, 20}) {
+            String expression = nestedIfs(depth);
+            parser.setSinglePassParse(false);
+            Assert.assertTrue(parser.test(expression).isPassed());
+            long legacy = measure(parser, expression);
+            parser.setSinglePassParse(true);
+            Assert.assertTrue(parser.test(expression).isPassed());
+            long singlePass = measure(parser, expression);
+            System.out.println(String.format("depth=%-3d length=%-5d legacy=%8d ops/s  singlePass=%8d ops/s  x%.1f",
+                    depth, expression.length(), legacy, singlePass, (double) singlePass / legacy));
+        }
+    }
+
+    /**
+     * 单次扫描解析器与1.8解析逻辑的解析结果一致
+     */
+    @Test
+    public void parity() {
+        ParityParser parser = new ParityParser();
+        for (String expression : EXPRESSIONS) {
+            Assert.assertEquals(expression, parser.legacy(expression), parser.singlePass(expression));
+        }
+        for (String expression : EDGE_EXPRESSIONS) {
+            Assert.assertEquals(expression, parser.legacy(expression), parser.singlePass(expression));
+        }
+        // 非函数调用交给Aviator执行
+        parser.setSinglePassParse(true);
+        Assert.assertEquals(2.0, parser.parseExpression("math.log10(x)").execute(Collections.singletonMap("x", 100)));
+        for (int depth = 1; depth <= 20; depth++) {
+            String expression = nestedIfs(depth);
+            Assert.assertEquals(expression, parser.legacy(expression), parser.singlePass(expression));
+        }
+    }
+
+    /**
+     * 每秒解析次数
+     */
+    private long measure(ReflectExpressionParser parser, String expression) {
+        for (int i = 0; i < WARM_UP; i++) {
+            parser.test(expression);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            parser.test(expression);
+        }
+        return ITERATIONS * 1_000_000_000L / (System.nanoTime() - start);
+    }
+
+    /**
+     * 生成嵌套的ifs表达式，例如depth=2:
+     * ifs(a>1&&contains(s,'x0'),substring(s,0,1),true,ifs(a>2&&contains(s,'x1'),substring(s,1,1),true,abs(a)+1))
+     */
+    static String nestedIfs(int depth) {
+        StringBuilder expression = new StringBuilder();
+        for (int i = 0; i < depth; i++) {
+            expression.append("ifs(a>").append(i + 1).append("&&contains(s,'x").append(i).append("'),substring(s,")
+                    .append(i).append(",1),true,");
+        }
+        expression.append("abs(a)+1");
+        for (int i = 0; i < depth; i++) {
+            expression.append(')');
+        }
+        return expression.toString();
+    }
+
+    /**
+     * 公开两种解析逻辑的解析结果
+     */
+    private static class ParityParser extends ReflectExpressionParser {
+
+        ParityParser() {
+            super(new DefaultMethodHolderFactory(), Collections.singleton(TestFunction.class));
+        }
+
+        Object singlePass(String expression) {
+            setSinglePassParse(true);
+            return outcome(expression);
+        }
+
+        Object legacy(String expression) {
+            setSinglePassParse(false);
+            return outcome(expression);
+        }
+
+        /**
+         * 解析结果，解析失败时为异常信息
+         */
+        private Object outcome(String expression) {
+            try {
+                return parse(expression);
+            } catch (ExpressionParseException e) {
+                return e.getMessage();
+            }
+        }
+    }
+
+}
@@ -1,8 +1,12 @@
 package expression.cheney.test;
 
+import expression.cheney.func.Pure;
 import jsonUtils.JsonUtils;
 
 import java.math.BigDecimal;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 /**
  * @author cheney
@@ -10,6 +14,12 @@ import java.math.BigDecimal;
  */
 public class TestFunction {
 
+    /**
+     * trace函数调用次数
+     */
+    public final static AtomicInteger TRACE_COUNT = new AtomicInteger();
+
+    @Pure
     public static String noArg() {
         return "yyyy-MM-dd";
     }
@@ -20,14 +30,89 @@ public class TestFunction {
         return "yyyy-MM-dd";
     }
 
+    @Pure
     public static BigDecimal abs(Object value) {
         return new BigDecimal(value.toString()).abs();
     }
 
+    @Pure
     public static BigDecimal to_number(Object object) {
         if (object == null) {
             throw new NullPointerException();
         }
         return new BigDecimal(object.toString());
     }
+
+    public static Object trace(Object object) {
+        TRACE_COUNT.incrementAndGet();
+        return object;
+    }
+
+    /**
+     * 计数的纯函数，用于验证公共子表达式只执行一次
+     */
+    @Pure
+    public static Object pureTrace(Object object) {
+        TRACE_COUNT.incrementAndGet();
+        return object;
+    }
+
+    /**
+     * 计数的重载纯函数，用于验证重载函数的折叠与合并
+     */
+    @Pure
+    public static Object pureOverload(String text) {
+        TRACE_COUNT.incrementAndGet();
+        return "string:" + text;
+    }
+
+    @Pure
+    public static Object pureOverload(Boolean flag) {
+        TRACE_COUNT.incrementAndGet();
+        return "boolean:" + flag;
+    }
+
+    /**
+     * 重载的延迟求值函数，只执行选中的分支
+     */
+    public static Object choose(Boolean condition, Supplier<?> first, Supplier<?> second) {
+        return Boolean.TRUE.equals(condition) ? first.get() : second.get();
+    }
+
+    public static Object choose(String condition, Supplier<?> first, Supplier<?> second) {
+        return "first".equals(condition) ? first.get() : second.get();
+    }
+
+    /**
+     * 重载的异步函数
+     */
+    public static CompletableFuture<Object> asyncOverload(String text) {
+        return CompletableFuture.completedFuture("string:" + text);
+    }
+
+    public static CompletableFuture<Object> asyncOverload(Boolean flag) {
+        return CompletableFuture.completedFuture("boolean:" + flag);
+    }
+
+    /**
+     * 模拟IO耗时的同步函数
+     */
+    public static Object sleep(Object object, Integer millis) throws InterruptedException {
+        Thread.sleep(millis);
+        return object;
+    }
+
+    /**
+     * 模拟IO耗时的异步函数
+     */
+    public static CompletableFuture<Object> asyncSleep(Object object, Integer millis) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return object;
+        });
+    }
 }
@@ -2,8 +2,10 @@ package jsonUtils;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import type.TypeReference;
 
 import java.io.IOException;
+import java.lang.reflect.Type;
 import java.util.Map;
 
 public class JsonUtils {
@@ -53,6 +55,25 @@ public class JsonUtils {
         return null;
     }
 
+    /**
+     * json转化为泛型bean，如{@code toJavaBean(json, new TypeReference<List<User>>(){})}
+     */
+    public static <T> T toJavaBean(String json, TypeReference<T> typeReference) {
+        return toJavaBean(json, typeReference.getActualType());
+    }
+
+    /**
+     * json转化为指定类型的bean，类型对应的JavaType由Jackson的TypeFactory缓存
+     */
+    public static <T> T toJavaBean(String json, Type type) {
+        try {
+            return getObjectMapper().readValue(json, getObjectMapper().getTypeFactory().constructType(type));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
     /**
      * json转化为map
      */
@@ -0,0 +1,284 @@
+package reflect;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 类的属性访问表
+ * 每个类只在首次使用时遍历一次类层级，收集read/write方法并绑定为MethodHandle，结果由{@link ClassValue}持有，
+ * 之后按属性名读写为一次HashMap查找加一次句柄调用，不再逐级getDeclaredMethod、捕获NoSuchMethodException或setAccessible
+ * <p>
+ * 属性名规则与{@link ReflectUtils#getReadMethod(Class, String)}一致：子类方法优先，同一类中get方法优先于is方法；
+ * set方法有重载时优先选择参数类型与read方法返回类型相同的方法
+ *
+ * @author cheney
+ * @date 2020-01-30
+ */
+@Slf4j
+public final class PropertyAccessors {
+
+    private final static String GET_PRE = "get";
+
+    private final static String SET_PRE = "set";
+
+    private final static String IS_PRE = "is";
+
+    private final static MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    private final static ClassValue<PropertyAccessors> CACHE = new ClassValue<PropertyAccessors>() {
+        @Override
+        protected PropertyAccessors computeValue(Class<?> type) {
+            return new PropertyAccessors(type);
+        }
+    };
+
+    private final Class<?> beanClass;
+
+    // 属性访问器，按类层级由子类到父类、声明顺序排列，构建后不再修改
+    private final Map<String, PropertyAccessor> accessors;
+
+    private PropertyAccessors(Class<?> beanClass) {
+        this.beanClass = beanClass;
+        Map<String, Method> readMethods = new LinkedHashMap<>();
+        Map<String, List<Method>> writeMethods = new HashMap<>();
+        for (Class<?> current = beanClass; current != null && current != Object.class; current = current.getSuperclass()) {
+            Method[] declaredMethods = current.getDeclaredMethods();
+            // 同一类中get方法优先于is方法
+            for (Method method : declaredMethods) {
+                if (isReadMethod(method, GET_PRE)) {
+                    readMethods.putIfAbsent(propertyName(method, GET_PRE), method);
+                }
+            }
+            for (Method method : declaredMethods) {
+                if (isReadMethod(method, IS_PRE)) {
+                    readMethods.putIfAbsent(propertyName(method, IS_PRE), method);
+                } else if (isWriteMethod(method)) {
+                    writeMethods.computeIfAbsent(propertyName(method, SET_PRE), key -> new ArrayList<>()).add(method);
+                }
+            }
+        }
+        Map<String, PropertyAccessor> accessors = new LinkedHashMap<>();
+        readMethods.forEach((name, method) -> accessors.put(name,
+                new PropertyAccessor(name, method, selectWriteMethod(writeMethods.remove(name), method.getReturnType()))));
+        writeMethods.forEach((name, methods) -> accessors.put(name, new PropertyAccessor(name, null, methods.get(0))));
+        this.accessors = Collections.unmodifiableMap(accessors);
+    }
+
+    /**
+     * 获取类的属性访问表，每个类只构建一次
+     *
+     * @param clazz 类
+     * @return 属性访问表
+     */
+    public static PropertyAccessors of(Class<?> clazz) {
+        return CACHE.get(clazz);
+    }
+
+    /**
+     * 获取属性访问器
+     *
+     * @param property 属性名
+     * @return 访问器，没有read/write方法时为null
+     */
+    public PropertyAccessor get(String property) {
+        return accessors.get(property);
+    }
+
+    /**
+     * 读取属性值
+     *
+     * @param bean     对象
+     * @param property 属性名
+     * @return 属性值
+     */
+    public Object read(Object bean, String property) {
+        PropertyAccessor accessor = accessors.get(property);
+        if (accessor == null || !accessor.isReadable()) {
+            throw new ReflectException("can not find read method with '" + property + "' in " + beanClass.getName());
+        }
+        return accessor.read(bean);
+    }
+
+    /**
+     * 写入属性值
+     *
+     * @param bean     对象
+     * @param property 属性名
+     * @param value    属性值
+     */
+    public void write(Object bean, String property, Object value) {
+        PropertyAccessor accessor = accessors.get(property);
+        if (accessor == null || !accessor.isWritable()) {
+            throw new ReflectException("can not find write method with '" + property + "' in " + beanClass.getName());
+        }
+        accessor.write(bean, value);
+    }
+
+    /**
+     * 所有属性访问器
+     */
+    public Collection<PropertyAccessor> getAccessors() {
+        return accessors.values();
+    }
+
+    public Class<?> getBeanClass() {
+        return beanClass;
+    }
+
+    private static boolean isReadMethod(Method method, String pre) {
+        return !Modifier.isStatic(method.getModifiers()) && !method.isBridge()
+                && method.getName().startsWith(pre) && method.getName().length() > pre.length()
+                && method.getParameterCount() == 0 && !void.class.equals(method.getReturnType());
+    }
+
+    private static boolean isWriteMethod(Method method) {
+        return !Modifier.isStatic(method.getModifiers()) && !method.isBridge()
+                && method.getName().startsWith(SET_PRE) && method.getName().length() > SET_PRE.length()
+                && method.getParameterCount() == 1 && void.class.equals(method.getReturnType());
+    }
+
+    /**
+     * 在重载的set方法中选择参数类型与属性类型相同的方法，没有时为子类中最先声明的方法
+     *
+     * @param methods 由子类到父类排列的set方法，可为null
+     * @param type    read方法返回类型
+     * @return set方法，没有时为null
+     */
+    private static Method selectWriteMethod(List<Method> methods, Class<?> type) {
+        if (methods == null) {
+            return null;
+        }
+        for (Method method : methods) {
+            if (method.getParameterTypes()[0] == type) {
+                return method;
+            }
+        }
+        return methods.get(0);
+    }
+
+    private static String propertyName(Method method, String pre) {
+        String name = method.getName().substring(pre.length());
+        return name.substring(0, 1).toLowerCase() + name.substring(1);
+    }
+
+    /**
+     * 绑定为指定类型的MethodHandle，无法绑定时返回null，调用时使用反射
+     */
+    private static MethodHandle unreflect(Method method, MethodType type) {
+        try {
+            method.setAccessible(true);
+            return LOOKUP.unreflect(method).asType(type);
+        } catch (Exception e) {
+            log.debug("方法{}无法绑定为MethodHandle，使用反射调用", method, e);
+            return null;
+        }
+    }
+
+    /**
+     * 单个属性的访问器
+     */
+    public static class PropertyAccessor {
+
+        private final static MethodType READ_TYPE = MethodType.methodType(Object.class, Object.class);
+
+        private final static MethodType WRITE_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+        private final String name;
+
+        // 属性类型，有read方法时为其返回类型，否则为write方法参数类型
+        private final Class<?> type;
+
+        private final Method readMethod;
+
+        private final Method writeMethod;
+
+        // 类型为(Object)Object
+        private final MethodHandle getter;
+
+        // 类型为(Object,Object)void
+        private final MethodHandle setter;
+
+        // write方法参数类型，基本类型为其包装类型
+        private final Class<?> writeType;
+
+        PropertyAccessor(String name, Method readMethod, Method writeMethod) {
+            this.name = name;
+            this.readMethod = readMethod;
+            this.writeMethod = writeMethod;
+            this.type = readMethod != null ? readMethod.getReturnType() : writeMethod.getParameterTypes()[0];
+            this.getter = readMethod == null ? null : unreflect(readMethod, READ_TYPE);
+            this.setter = writeMethod == null ? null : unreflect(writeMethod, WRITE_TYPE);
+            this.writeType = writeMethod == null ? null : ReflectUtils.wrap(writeMethod.getParameterTypes()[0]);
+        }
+
+        /**
+         * 读取属性值
+         */
+        public Object read(Object bean) {
+            try {
+                return getter != null ? (Object) getter.invokeExact(bean) : readMethod.invoke(bean);
+            } catch (Throwable e) {
+                throw new ReflectException("反射获取字段值错误", e);
+            }
+        }
+
+        /**
+         * 写入属性值，基本类型属性自动拆箱
+         */
+        public void write(Object bean, Object value) {
+            try {
+                if (setter != null) {
+                    setter.invokeExact(bean, value);
+                } else {
+                    writeMethod.invoke(bean, value);
+                }
+            } catch (Throwable e) {
+                throw new ReflectException("反射写入字段值错误", e);
+            }
+        }
+
+        /**
+         * write方法能否接收该值，null只能写入非基本类型属性
+         */
+        public boolean accepts(Object value) {
+            return writeType != null && (value == null ? !writeMethod.getParameterTypes()[0].isPrimitive() : writeType.isInstance(value));
+        }
+
+        public boolean isReadable() {
+            return readMethod != null;
+        }
+
+        public boolean isWritable() {
+            return writeMethod != null;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Class<?> getType() {
+            return type;
+        }
+
+        public Method getReadMethod() {
+            return readMethod;
+        }
+
+        public Method getWriteMethod() {
+            return writeMethod;
+        }
+    }
+
+}
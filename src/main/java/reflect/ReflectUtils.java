@@ -21,13 +21,43 @@ public class ReflectUtils {
 
     private final static String IS_PRE = "is";
 
+    // 基本类型对应的包装类型
+    private final static Map<Class<?>, Class<?>> PRIMITIVE_WRAPPERS = new HashMap<>();
+
+    static {
+        PRIMITIVE_WRAPPERS.put(boolean.class, Boolean.class);
+        PRIMITIVE_WRAPPERS.put(byte.class, Byte.class);
+        PRIMITIVE_WRAPPERS.put(char.class, Character.class);
+        PRIMITIVE_WRAPPERS.put(short.class, Short.class);
+        PRIMITIVE_WRAPPERS.put(int.class, Integer.class);
+        PRIMITIVE_WRAPPERS.put(long.class, Long.class);
+        PRIMITIVE_WRAPPERS.put(float.class, Float.class);
+        PRIMITIVE_WRAPPERS.put(double.class, Double.class);
+        PRIMITIVE_WRAPPERS.put(void.class, Void.class);
+    }
+
     private ReflectUtils() {
     }
 
+    /**
+     * 基本类型转换为包装类型，非基本类型原样返回
+     *
+     * @param type 类型
+     * @return 包装类型
+     */
+    public static Class<?> wrap(Class<?> type) {
+        return type.isPrimitive() ? PRIMITIVE_WRAPPERS.get(type) : type;
+    }
+
     /**
      * 反射获取字段值
+     * 优先使用类的属性访问表{@link PropertyAccessors}，属性名不是标准read方法时按方法名查找
      */
     public static Object readValue(Object bean, String property) {
+        PropertyAccessors.PropertyAccessor accessor = PropertyAccessors.of(bean.getClass()).get(property);
+        if (accessor != null && accessor.isReadable()) {
+            return accessor.read(bean);
+        }
         try {
             return getReadMethod(bean.getClass(), property).invoke(bean);
         } catch (Exception e) {
@@ -113,8 +143,14 @@ public class ReflectUtils {
 
     /**
      * 反射写入字段值
+     * 优先使用类的属性访问表{@link PropertyAccessors}，其set方法不能接收该值时按值的类型查找重载的set方法
      */
     public static void writeValue(Object bean, String property, Object value) {
+        PropertyAccessors.PropertyAccessor accessor = PropertyAccessors.of(bean.getClass()).get(property);
+        if (accessor != null && (value == null ? accessor.isWritable() : accessor.accepts(value))) {
+            accessor.write(bean, value);
+            return;
+        }
         try {
             getWriterMethod(bean.getClass(), property, value.getClass()).invoke(bean, value);
         } catch (Exception e) {
@@ -0,0 +1,60 @@
+package reflect;
+
+import org.junit.Assert;
+import org.junit.Test;
+import reflect.pojo.Admin;
+
+/**
+ * 测试类
+ *
+ * @author cheney
+ * @date 2020-01-30
+ */
+public class TestMain {
+
+    @Test
+    public void testAccessors() {
+        Admin admin = new Admin();
+        PropertyAccessors accessors = PropertyAccessors.of(Admin.class);
+        Assert.assertSame(accessors, PropertyAccessors.of(Admin.class));
+        accessors.write(admin, "username", "cheney");
+        ReflectUtils.writeValue(admin, "adminNumber", "001");
+        Assert.assertEquals("cheney", ReflectUtils.readValue(admin, "username"));
+        Assert.assertEquals("001", accessors.read(admin, "adminNumber"));
+        Assert.assertEquals("001", accessors.read(admin, "adminNumber2"));
+        Assert.assertEquals(String.class, accessors.get("test2").getType());
+        // 非标准read方法名按方法名查找
+        Assert.assertEquals("001", ReflectUtils.readValue(admin, "getAdminNumber"));
+        Assert.assertNull(accessors.get("missing"));
+    }
+
+    @Test
+    public void testOverloadedSetter() {
+        Overloaded overloaded = new Overloaded();
+        // 优先选择参数类型与read方法返回类型相同的set方法
+        Assert.assertEquals(Integer.class, PropertyAccessors.of(Overloaded.class).get("count").getWriteMethod().getParameterTypes()[0]);
+        ReflectUtils.writeValue(overloaded, "count", 6);
+        Assert.assertEquals(Integer.valueOf(6), overloaded.getCount());
+        // 值的类型不匹配时按值的类型查找重载的set方法
+        ReflectUtils.writeValue(overloaded, "count", "7");
+        Assert.assertEquals(Integer.valueOf(7), overloaded.getCount());
+    }
+
+    public static class Overloaded {
+
+        private Integer count;
+
+        public Integer getCount() {
+            return count;
+        }
+
+        public void setCount(String count) {
+            this.count = Integer.valueOf(count);
+        }
+
+        public void setCount(Integer count) {
+            this.count = count;
+        }
+    }
+
+}
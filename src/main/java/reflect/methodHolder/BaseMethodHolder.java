@@ -2,16 +2,22 @@ package reflect.methodHolder;
 
 import com.alibaba.fastjson.JSON;
 import lombok.extern.slf4j.Slf4j;
+import reflect.ReflectUtils;
 import reflect.methodHolder.exception.MethodHolderInvokeException;
 import reflect.methodHolder.exception.NoSuchMethodException;
 
 import java.lang.reflect.Array;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * 基础MethodHolder实现类
+ * 同名的重载方法全部保留，按方法名与参数个数建立分派表，调用时根据参数的运行时类型选择最具体的重载方法
  *
  * @author cheney
  * @date 2019-12-06
@@ -19,21 +25,32 @@ import java.util.concurrent.ConcurrentHashMap;
 @Slf4j
 public abstract class BaseMethodHolder implements MethodHolder {
 
+    // 可拓宽转换的基本类型，靠前的类型可转换为靠后的类型(char单独处理)
+    private final static List<Class<?>> WIDENING_ORDER =
+            Arrays.asList(byte.class, short.class, int.class, long.class, float.class, double.class);
+
     // 持有方法所属类
     private Class<?> holdClass;
 
-    // 方法缓存Map
+    // 方法缓存Map，同名方法以最后缓存的为准
     protected ConcurrentHashMap<String, Method> methodMap;
 
+    // 同名的所有重载方法
+    protected ConcurrentHashMap<String, List<Method>> overloadMap;
+
+    // 按方法名与参数个数缓存的候选方法，key为 方法名/参数个数
+    private ConcurrentHashMap<String, Method[]> dispatchTable;
+
     public BaseMethodHolder(Class<?> clazz) {
         this.holdClass = clazz;
         this.methodMap = new ConcurrentHashMap<>();
+        this.overloadMap = new ConcurrentHashMap<>();
+        this.dispatchTable = new ConcurrentHashMap<>();
     }
 
     @Override
     public Object invoke(String methodName, Object obj, Object... args) {
-        Optional<Method> methodOpt = getMethod(methodName);
-        Method method = methodOpt.orElseThrow(() -> new NoSuchMethodException(methodName));
+        Method method = selectMethod(methodName, args);
         try {
             int parameterCount = method.getParameterCount();
             Class<?> parameterType;
@@ -67,16 +84,36 @@ public abstract class BaseMethodHolder implements MethodHolder {
         int defineNum = parameterCount - 1;
         // 非不定参数不变，copy
         System.arraycopy(args, 0, fixArgs, 0, defineNum);
-        // 通过反射将不定参数包装到array中，存到fixArgs最后一位
-        Object array = Array.newInstance(type, args.length - parameterCount + 1);
-        int index = 0;
-        for (int i = defineNum; i < args.length; i++) {
-            Array.set(array, index++, args[i]);
-        }
-        fixArgs[defineNum] = array;
+        // 将不定参数包装到array中，存到fixArgs最后一位
+        fixArgs[defineNum] = toVarArgsArray(args, defineNum, type);
         return fixArgs;
     }
 
+    /**
+     * 将args中from及之后的参数包装为不定参数array
+     * 引用类型直接数组复制，只有基本类型逐个通过反射赋值
+     *
+     * @param args 参数
+     * @param from 不定参数起始下标
+     * @param type 不定参数类型
+     * @return 不定参数array
+     */
+    static Object toVarArgsArray(Object[] args, int from, Class<?> type) {
+        int length = args.length - from;
+        if (type == Object.class) {
+            return Arrays.copyOfRange(args, from, args.length);
+        }
+        Object array = Array.newInstance(type, length);
+        if (!type.isPrimitive()) {
+            System.arraycopy(args, from, array, 0, length);
+            return array;
+        }
+        for (int i = 0; i < length; i++) {
+            Array.set(array, i, args[from + i]);
+        }
+        return array;
+    }
+
     /**
      * 生成空的Object array
      *
@@ -91,6 +128,193 @@ public abstract class BaseMethodHolder implements MethodHolder {
         return nullArray;
     }
 
+    @Override
+    public MethodInvoker getInvoker(String methodName, int argCount) {
+        return getInvoker(methodName, null, argCount);
+    }
+
+    /**
+     * 获取绑定方法与目标对象的调用器
+     * 参数个数只匹配一个重载方法时直接绑定，匹配多个时每次调用按参数运行时类型分派，
+     * 并在调用器(即调用点)上缓存最近一次参数类型的分派结果；没有参数个数匹配的方法时按方法名绑定
+     *
+     * @param methodName 方法名
+     * @param target     目标对象，静态方法为null
+     * @param argCount   调用时的参数个数
+     * @return 调用器
+     */
+    protected MethodInvoker getInvoker(String methodName, Object target, int argCount) {
+        Method[] candidates = candidates(methodName, argCount);
+        if (candidates.length > 1) {
+            return new OverloadMethodInvoker(this, candidates, target, argCount);
+        }
+        Method method = candidates.length == 1 ? candidates[0] :
+                getMethod(methodName).orElseThrow(() -> new NoSuchMethodException(methodName));
+        return bind(method, target, argCount);
+    }
+
+    /**
+     * 将确定的方法绑定为调用器，子类可替换绑定方式
+     *
+     * @param method   方法
+     * @param target   目标对象，静态方法为null
+     * @param argCount 调用时的参数个数
+     * @return 调用器
+     */
+    protected MethodInvoker bind(Method method, Object target, int argCount) {
+        return new BoundMethodInvoker(method, target, argCount);
+    }
+
+    /**
+     * 按参数个数获取候选方法，不定参数方法在参数个数不少于固定参数个数时匹配
+     *
+     * @param methodName 方法名
+     * @param argCount   参数个数
+     * @return 候选方法，非不定参数方法在前
+     */
+    protected Method[] candidates(String methodName, int argCount) {
+        return dispatchTable.computeIfAbsent(methodName + "/" + argCount, key -> {
+            List<Method> overloads = overloadMap.get(methodName);
+            if (overloads == null) {
+                return new Method[0];
+            }
+            List<Method> fixed = new ArrayList<>();
+            List<Method> varArgs = new ArrayList<>();
+            for (Method method : overloads) {
+                int parameterCount = method.getParameterCount();
+                if (parameterCount == argCount) {
+                    fixed.add(method);
+                } else if (isVarArgs(method) && argCount >= parameterCount - 1) {
+                    varArgs.add(method);
+                }
+            }
+            fixed.addAll(varArgs);
+            return fixed.toArray(new Method[0]);
+        });
+    }
+
+    /**
+     * 根据参数运行时类型选择方法，无匹配的重载方法时按方法名查找
+     *
+     * @param methodName 方法名
+     * @param args       参数
+     * @return 方法
+     */
+    private Method selectMethod(String methodName, Object[] args) {
+        Method[] candidates = candidates(methodName, args == null ? 0 : args.length);
+        if (candidates.length == 1 || (candidates.length > 1 && args == null)) {
+            return candidates[0];
+        }
+        if (candidates.length > 1) {
+            Method method = mostSpecific(candidates, args);
+            if (method != null) {
+                return method;
+            }
+        }
+        return getMethod(methodName).orElseThrow(() -> new NoSuchMethodException(methodName));
+    }
+
+    /**
+     * 在候选方法中选择参数类型最具体的方法
+     * 与{@link Method#invoke}的参数转换一致，参数类型匹配(含拆箱)的方法优先，没有时再按基本类型拓宽转换(如Integer→long)匹配；
+     * 固定参数方法优先于不定参数方法，参数类型可相互赋值或拓宽时子类型/较窄的基本类型更具体
+     *
+     * @param candidates 候选方法
+     * @param args       参数
+     * @return 方法，没有适用的方法时为null
+     */
+    static Method mostSpecific(Method[] candidates, Object[] args) {
+        Method best = mostSpecific(candidates, args, false);
+        return best == null ? mostSpecific(candidates, args, true) : best;
+    }
+
+    private static Method mostSpecific(Method[] candidates, Object[] args, boolean widening) {
+        Method best = null;
+        for (Method candidate : candidates) {
+            if (!isApplicable(candidate, args, widening)) {
+                continue;
+            }
+            if (best == null) {
+                best = candidate;
+            } else if (isVarArgs(best) == isVarArgs(candidate) && isMoreSpecific(candidate, best)) {
+                best = candidate;
+            } else if (isVarArgs(best) && !isVarArgs(candidate)) {
+                best = candidate;
+            }
+        }
+        return best;
+    }
+
+    private static boolean isApplicable(Method method, Object[] args, boolean widening) {
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        boolean varArgs = isVarArgs(method);
+        for (int i = 0; i < args.length; i++) {
+            Class<?> type;
+            if (varArgs && i >= parameterTypes.length - 1) {
+                type = parameterTypes[parameterTypes.length - 1].getComponentType();
+            } else {
+                type = parameterTypes[i];
+            }
+            if (!accepts(type, args[i], widening)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean accepts(Class<?> type, Object arg, boolean widening) {
+        if (arg == null) {
+            return !type.isPrimitive();
+        }
+        if (ReflectUtils.wrap(type).isInstance(arg)) {
+            return true;
+        }
+        return widening && type.isPrimitive() && isPrimitiveWidening(unwrap(arg.getClass()), type);
+    }
+
+    private static boolean isMoreSpecific(Method method, Method than) {
+        Class<?>[] types = method.getParameterTypes();
+        Class<?>[] thanTypes = than.getParameterTypes();
+        if (types.length != thanTypes.length) {
+            return false;
+        }
+        for (int i = 0; i < types.length; i++) {
+            if (!ReflectUtils.wrap(thanTypes[i]).isAssignableFrom(ReflectUtils.wrap(types[i]))
+                    && !isPrimitiveWidening(types[i], thanTypes[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 是否为基本类型的拓宽转换，from不是基本类型时为false
+     */
+    private static boolean isPrimitiveWidening(Class<?> from, Class<?> to) {
+        if (from == char.class) {
+            return to == int.class || to == long.class || to == float.class || to == double.class;
+        }
+        int fromIndex = WIDENING_ORDER.indexOf(from);
+        return fromIndex >= 0 && WIDENING_ORDER.indexOf(to) > fromIndex;
+    }
+
+    /**
+     * 包装类型对应的基本类型，不是包装类型时返回原类型
+     */
+    private static Class<?> unwrap(Class<?> type) {
+        for (Class<?> primitive : WIDENING_ORDER) {
+            if (ReflectUtils.wrap(primitive) == type) {
+                return primitive;
+            }
+        }
+        return type == Character.class ? char.class : type;
+    }
+
+    private static boolean isVarArgs(Method method) {
+        int parameterCount = method.getParameterCount();
+        return parameterCount > 0 && method.getParameterTypes()[parameterCount - 1].isArray();
+    }
+
     @Override
     public boolean hasMethod(String methodName) {
         return methodMap.containsKey(methodName);
@@ -115,10 +339,157 @@ public abstract class BaseMethodHolder implements MethodHolder {
         if (method == null)
             return;
         methodMap.put(method.getName(), method);
+        overloadMap.computeIfAbsent(method.getName(), name -> new CopyOnWriteArrayList<>()).add(method);
+        dispatchTable.clear();
     }
 
     public Class<?> getHoldClass() {
         return holdClass;
     }
 
+    /**
+     * 绑定方法的调用器
+     * 按调用时的参数个数预先确定参数修复方式，与{@link #invoke(String, Object, Object...)}的参数处理保持一致
+     */
+    protected static class BoundMethodInvoker implements MethodInvoker {
+
+        private final Method method;
+
+        private final Object target;
+
+        // 方法参数个数
+        private final int parameterCount;
+
+        // 不定参数的元素类型，非不定参数时为null
+        private final Class<?> varArgsType;
+
+        // 无参调用时填充的null数组
+        private final Object[] nullArgs;
+
+        public BoundMethodInvoker(Method method, Object target, int argCount) {
+            this.method = method;
+            this.target = target;
+            this.parameterCount = method.getParameterCount();
+            Class<?>[] parameterTypes = method.getParameterTypes();
+            this.varArgsType = argCount > 0 && parameterCount > 0 && parameterTypes[parameterCount - 1].isArray() ?
+                    parameterTypes[parameterCount - 1].getComponentType() : null;
+            this.nullArgs = argCount == 0 ? new Object[parameterCount] : null;
+        }
+
+        @Override
+        public Object invoke(Object... args) {
+            try {
+                if (nullArgs != null) {
+                    return method.invoke(target, nullArgs);
+                } else if (varArgsType != null) {
+                    return method.invoke(target, fixVarArgs(args));
+                } else {
+                    return method.invoke(target, args);
+                }
+            } catch (Exception e) {
+                throw new MethodHolderInvokeException("执行方法" + method.getDeclaringClass().getSimpleName() + "#" +
+                        method.getName() + "异常，方法入参:" + JSON.toJSONString(args), e);
+            }
+        }
+
+        /**
+         * 将最后一项参数(不定参数)包装为array
+         */
+        private Object[] fixVarArgs(Object[] args) {
+            Object[] fixArgs = new Object[parameterCount];
+            int defineNum = parameterCount - 1;
+            System.arraycopy(args, 0, fixArgs, 0, defineNum);
+            fixArgs[defineNum] = toVarArgsArray(args, defineNum, varArgsType);
+            return fixArgs;
+        }
+
+        @Override
+        public Method getMethod() {
+            return method;
+        }
+    }
+
+    /**
+     * 重载方法的调用器
+     * 每个调用器对应一个调用点，缓存最近一次参数运行时类型及其分派到的方法，参数类型不变时不再重新选择
+     */
+    protected static class OverloadMethodInvoker implements MethodInvoker {
+
+        // 分派到方法后由holder绑定调用器
+        private final BaseMethodHolder holder;
+
+        private final Method[] candidates;
+
+        private final Object target;
+
+        private final int argCount;
+
+        // 最近一次的分派结果
+        private volatile DispatchCache cache;
+
+        public OverloadMethodInvoker(BaseMethodHolder holder, Method[] candidates, Object target, int argCount) {
+            this.holder = holder;
+            this.candidates = candidates;
+            this.target = target;
+            this.argCount = argCount;
+        }
+
+        @Override
+        public Object invoke(Object... args) {
+            DispatchCache current = cache;
+            if (current == null || !current.matches(args)) {
+                Method method = mostSpecific(candidates, args);
+                if (method == null) {
+                    throw new MethodHolderInvokeException("方法" + candidates[0].getDeclaringClass().getSimpleName() + "#" +
+                            candidates[0].getName() + "没有匹配参数类型的重载，方法入参:" + JSON.toJSONString(args), null);
+                }
+                current = new DispatchCache(args, holder.bind(method, target, argCount));
+                cache = current;
+            }
+            return current.invoker.invoke(args);
+        }
+
+        /**
+         * 重载方法的参数类型不唯一，返回null，候选方法见{@link #getCandidates()}
+         */
+        @Override
+        public Method getMethod() {
+            return null;
+        }
+
+        @Override
+        public Method[] getCandidates() {
+            return candidates.clone();
+        }
+    }
+
+    /**
+     * 参数运行时类型与分派到的调用器
+     */
+    private static class DispatchCache {
+
+        // 参数类型，null参数为null
+        private final Class<?>[] argClasses;
+
+        private final MethodInvoker invoker;
+
+        DispatchCache(Object[] args, MethodInvoker invoker) {
+            this.argClasses = new Class<?>[args.length];
+            for (int i = 0; i < args.length; i++) {
+                argClasses[i] = args[i] == null ? null : args[i].getClass();
+            }
+            this.invoker = invoker;
+        }
+
+        boolean matches(Object[] args) {
+            for (int i = 0; i < args.length; i++) {
+                Class<?> argClass = args[i] == null ? null : args[i].getClass();
+                if (argClass != argClasses[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
 }
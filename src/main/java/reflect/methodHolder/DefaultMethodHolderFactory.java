@@ -3,21 +3,80 @@ package reflect.methodHolder;
 import reflect.methodHolder.exception.MethodHolderReflectException;
 
 import java.lang.reflect.Constructor;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * MethodHolder工厂类
+ * 默认实现为{@link StatusMethodHolder}，可通过构造函数指定如{@link HandleMethodHolder}等其他实现；
+ * 通过{@link #registeredInstance(Object)}注册的实例，获取其类的MethodHolder时总返回绑定该实例的{@link InstanceMethodHolder}
  *
  * @author cheney
  * @date 2019-12-05
  */
 public class DefaultMethodHolderFactory implements MethodHolderFactory {
 
-    private ConcurrentHashMap<Class<?>, MethodHolder> methodHolderCache = new ConcurrentHashMap<>();
+    private ConcurrentHashMap<Class<?>, Map<Class<? extends MethodHolder>, MethodHolder>> methodHolderCache = new ConcurrentHashMap<>();
+
+    // 注册的实例对应的MethodHolder，key为实例的类
+    private ConcurrentHashMap<Class<?>, InstanceMethodHolder> instanceHolderCache = new ConcurrentHashMap<>();
+
+    // 默认的MethodHolder实现
+    private final Class<? extends MethodHolder> methodHolderClass;
+
+    public DefaultMethodHolderFactory() {
+        this(StatusMethodHolder.class);
+    }
+
+    public DefaultMethodHolderFactory(Class<? extends MethodHolder> methodHolderClass) {
+        this.methodHolderClass = methodHolderClass;
+    }
 
     @Override
     public MethodHolder getMethodHolder(Class<?> clazz, Class<? extends MethodHolder> methodHolderClass) {
-        return methodHolderCache.computeIfAbsent(clazz, key -> registeredClass(clazz, methodHolderClass));
+        InstanceMethodHolder instanceHolder = instanceHolderCache.get(clazz);
+        if (instanceHolder != null) {
+            return instanceHolder;
+        }
+        return methodHolderCache.computeIfAbsent(clazz, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(methodHolderClass, key -> registeredClass(clazz, methodHolderClass));
+    }
+
+    @Override
+    public Class<? extends MethodHolder> getMethodHolderClass() {
+        return methodHolderClass;
+    }
+
+    /**
+     * 丢弃类的MethodHolder缓存，注册的实例不受影响
+     */
+    @Override
+    public void removeMethodHolder(Class<?> clazz) {
+        methodHolderCache.remove(clazz);
+    }
+
+    /**
+     * 注册实例，之后获取该实例的类的MethodHolder时返回绑定该实例的MethodHolder，同一个类重复注册时以最后注册的为准
+     *
+     * @param instance 实例
+     * @return 绑定该实例的MethodHolder
+     */
+    public MethodHolder registeredInstance(Object instance) {
+        if (instance == null) {
+            throw new NullPointerException();
+        }
+        InstanceMethodHolder methodHolder = new InstanceMethodHolder(instance);
+        instanceHolderCache.put(instance.getClass(), methodHolder);
+        return methodHolder;
+    }
+
+    /**
+     * 取消注册的实例
+     *
+     * @param clazz 实例的类
+     */
+    public void removeInstance(Class<?> clazz) {
+        instanceHolderCache.remove(clazz);
     }
 
     @Override
@@ -0,0 +1,100 @@
+package reflect.methodHolder;
+
+import com.alibaba.fastjson.JSON;
+import lombok.extern.slf4j.Slf4j;
+import reflect.methodHolder.exception.MethodHolderInvokeException;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * 基于MethodHandle的静态方法MethodHolder实现类
+ * 获取调用器时将方法一次性绑定为MethodHandle，不定参数收集与参数装箱/拆箱转换在绑定时预先适配，
+ * 调用时不再经过{@link Method#invoke(Object, Object...)}的访问检查与参数数组复制
+ *
+ * @author cheney
+ * @date 2020-01-30
+ */
+@Slf4j
+public class HandleMethodHolder extends StatusMethodHolder {
+
+    private final static MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    public HandleMethodHolder(Class<?> clazz) {
+        super(clazz);
+    }
+
+    /**
+     * 绑定为MethodHandle调用器，无参调用基本类型参数等无法预先适配的情况使用反射调用器
+     */
+    @Override
+    protected MethodInvoker bind(Method method, Object target, int argCount) {
+        try {
+            return new HandleMethodInvoker(method, adapt(method, target, argCount));
+        } catch (IllegalAccessException | RuntimeException e) {
+            log.debug("方法{}无法绑定为MethodHandle，使用反射调用", method, e);
+            return super.bind(method, target, argCount);
+        }
+    }
+
+    /**
+     * 适配为(Object[])Object类型的MethodHandle，与{@link BoundMethodInvoker}的参数处理保持一致：
+     * 无参调用时所有参数填充null，不定参数方法将多出的参数收集为array
+     *
+     * @param method   方法
+     * @param target   目标对象，静态方法为null或忽略
+     * @param argCount 调用时的参数个数
+     * @return MethodHandle
+     */
+    static MethodHandle adapt(Method method, Object target, int argCount) throws IllegalAccessException {
+        MethodHandle handle = LOOKUP.unreflect(method);
+        if (target != null && !Modifier.isStatic(method.getModifiers())) {
+            handle = handle.bindTo(target);
+        }
+        int parameterCount = method.getParameterCount();
+        if (argCount == 0) {
+            handle = MethodHandles.insertArguments(handle, 0, new Object[parameterCount]);
+        } else if (parameterCount > 0 && method.getParameterTypes()[parameterCount - 1].isArray()) {
+            Class<?> arrayType = method.getParameterTypes()[parameterCount - 1];
+            handle = handle.asCollector(arrayType, argCount - parameterCount + 1);
+        }
+        return handle.asType(handle.type().generic())
+                .asSpreader(Object[].class, argCount)
+                .asType(MethodType.methodType(Object.class, Object[].class));
+    }
+
+    /**
+     * MethodHandle调用器
+     */
+    protected static class HandleMethodInvoker implements MethodInvoker {
+
+        private final Method method;
+
+        // 类型为(Object[])Object
+        private final MethodHandle handle;
+
+        public HandleMethodInvoker(Method method, MethodHandle handle) {
+            this.method = method;
+            this.handle = handle;
+        }
+
+        @Override
+        public Object invoke(Object... args) {
+            try {
+                return (Object) handle.invokeExact(args);
+            } catch (Throwable e) {
+                throw new MethodHolderInvokeException("执行方法" + method.getDeclaringClass().getSimpleName() + "#" +
+                        method.getName() + "异常，方法入参:" + JSON.toJSONString(args), e);
+            }
+        }
+
+        @Override
+        public Method getMethod() {
+            return method;
+        }
+    }
+
+}
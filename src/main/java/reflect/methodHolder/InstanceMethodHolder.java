@@ -0,0 +1,70 @@
+package reflect.methodHolder;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 绑定实例的MethodHolder实现类
+ * 持有接收者对象，缓存其公共方法(不包括Object声明的方法)，调用时总以持有的实例为目标，
+ * 使有状态的函数提供者(缓存、依赖连接的查询等)无需静态单例即可在表达式中调用；
+ * 调用器按方法名与参数个数对该实例只绑定一次MethodHandle
+ *
+ * @author cheney
+ * @date 2020-01-30
+ */
+@Slf4j
+public class InstanceMethodHolder extends BaseMethodHolder {
+
+    // 接收者对象
+    private final Object receiver;
+
+    // 已绑定的调用器，key为 方法名/参数个数
+    private final ConcurrentHashMap<String, MethodInvoker> invokerCache = new ConcurrentHashMap<>();
+
+    public InstanceMethodHolder(Object receiver) {
+        super(receiver.getClass());
+        this.receiver = receiver;
+        for (Method method : receiver.getClass().getMethods()) {
+            if (method.getDeclaringClass() != Object.class) {
+                cacheMethod(method);
+            }
+        }
+    }
+
+    @Override
+    public Object invoke(String methodName, Object obj, Object... args) {
+        return super.invoke(methodName, receiver, args);
+    }
+
+    @Override
+    public MethodInvoker getInvoker(String methodName, int argCount) {
+        return invokerCache.computeIfAbsent(methodName + "/" + argCount,
+                key -> getInvoker(methodName, receiver, argCount));
+    }
+
+    @Override
+    public void cacheMethod(Method method) {
+        super.cacheMethod(method);
+        invokerCache.clear();
+    }
+
+    /**
+     * 绑定为MethodHandle调用器，无法绑定时使用反射调用器
+     */
+    @Override
+    protected MethodInvoker bind(Method method, Object target, int argCount) {
+        try {
+            return new HandleMethodHolder.HandleMethodInvoker(method, HandleMethodHolder.adapt(method, target, argCount));
+        } catch (IllegalAccessException | RuntimeException e) {
+            log.debug("方法{}无法绑定为MethodHandle，使用反射调用", method, e);
+            return super.bind(method, target, argCount);
+        }
+    }
+
+    public Object getReceiver() {
+        return receiver;
+    }
+
+}
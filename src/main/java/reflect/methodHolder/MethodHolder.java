@@ -1,5 +1,7 @@
 package reflect.methodHolder;
 
+import reflect.methodHolder.exception.NoSuchMethodException;
+
 /**
  * 方法反射缓存接口
  *
@@ -12,4 +14,18 @@ public interface MethodHolder {
 
     boolean hasMethod(String methodName);
 
+    /**
+     * 获取绑定方法的调用器，方法查找与不定参数适配在此一次完成
+     *
+     * @param methodName 方法名
+     * @param argCount   调用时的参数个数
+     * @return 调用器
+     */
+    default MethodInvoker getInvoker(String methodName, int argCount) {
+        if (!hasMethod(methodName)) {
+            throw new NoSuchMethodException(methodName);
+        }
+        return args -> invoke(methodName, null, args);
+    }
+
 }
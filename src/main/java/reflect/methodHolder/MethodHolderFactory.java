@@ -10,5 +10,30 @@ public interface MethodHolderFactory {
 
     MethodHolder getMethodHolder(Class<?> clazz, Class<? extends MethodHolder> methodHolderClass);
 
+    /**
+     * 以工厂默认的MethodHolder实现获取类的MethodHolder
+     *
+     * @param clazz 类
+     * @return MethodHolder
+     */
+    default MethodHolder getMethodHolder(Class<?> clazz) {
+        return getMethodHolder(clazz, getMethodHolderClass());
+    }
+
+    /**
+     * 工厂默认的MethodHolder实现
+     */
+    default Class<? extends MethodHolder> getMethodHolderClass() {
+        return StatusMethodHolder.class;
+    }
+
     MethodHolder registeredClass(Class<?> clazz, Class<? extends MethodHolder> methodHolderClass);
+
+    /**
+     * 丢弃类的MethodHolder缓存，类重新加载或不再使用时调用
+     *
+     * @param clazz 类
+     */
+    default void removeMethodHolder(Class<?> clazz) {
+    }
 }
@@ -0,0 +1,44 @@
+package reflect.methodHolder;
+
+import java.lang.reflect.Method;
+
+/**
+ * 绑定到具体方法的调用器
+ * 由{@link MethodHolder#getInvoker(String, int)}一次性确定目标方法与不定参数适配方式，
+ * 调用时不再按方法名查找
+ *
+ * @author cheney
+ * @date 2020-01-10
+ */
+@FunctionalInterface
+public interface MethodInvoker {
+
+    /**
+     * 执行绑定的方法
+     *
+     * @param args 参数，个数需与获取调用器时指定的参数个数一致
+     * @return 方法返回值
+     */
+    Object invoke(Object... args);
+
+    /**
+     * 绑定的方法，用于调用方在绑定时读取参数类型等信息
+     *
+     * @return 方法，未知时返回null
+     */
+    default Method getMethod() {
+        return null;
+    }
+
+    /**
+     * 可能调用的方法，用于调用方读取所有候选方法共同的信息(注解、参数类型、返回类型等)
+     * 重载方法的调用器按参数运行时类型分派，{@link #getMethod()}为null，此时返回所有候选方法
+     *
+     * @return 候选方法，未知时返回空数组
+     */
+    default Method[] getCandidates() {
+        Method method = getMethod();
+        return method == null ? new Method[0] : new Method[]{method};
+    }
+
+}
@@ -1,8 +1,12 @@
 package reflect.methodHolder;
 
+import org.junit.Assert;
 import org.junit.Test;
 import reflect.ReflectUtils;
 
+import java.math.BigDecimal;
+import java.util.Arrays;
+
 /**
  * 测试类
  *
@@ -18,4 +22,107 @@ public class TestMain {
         System.out.println(methodHolder.invoke("field", new Object(), DefaultMethodHolderFactory.class, "methodHolderCache"));
     }
 
+    @Test
+    public void testInvoker() {
+        DefaultMethodHolderFactory holderFactory = new DefaultMethodHolderFactory();
+        MethodHolder methodHolder = holderFactory.getMethodHolder(ReflectUtils.class, StatusMethodHolder.class);
+        MethodInvoker invoker = methodHolder.getInvoker("field", 2);
+        System.out.println(invoker.invoke(DefaultMethodHolderFactory.class, "methodHolderCache"));
+    }
+
+
+    @Test
+    public void testOverload() {
+        DefaultMethodHolderFactory holderFactory = new DefaultMethodHolderFactory();
+        MethodHolder methodHolder = holderFactory.getMethodHolder(OverloadFunction.class, StatusMethodHolder.class);
+        MethodInvoker invoker = methodHolder.getInvoker("describe", 1);
+        Assert.assertEquals("string:a", invoker.invoke("a"));
+        Assert.assertEquals("integer:1", invoker.invoke(1));
+        Assert.assertEquals("number:1.5", invoker.invoke(new BigDecimal("1.5")));
+        Assert.assertEquals("object:true", invoker.invoke(true));
+        Assert.assertEquals("string:b", invoker.invoke("b"));
+        Assert.assertEquals("pair:a,1", methodHolder.getInvoker("describe", 2).invoke("a", 1));
+        Assert.assertEquals("varargs:3", methodHolder.getInvoker("describe", 3).invoke("a", "b", "c"));
+        Assert.assertEquals("integer:2", methodHolder.invoke("describe", null, 2));
+    }
+
+    @Test
+    public void testWidening() {
+        DefaultMethodHolderFactory holderFactory = new DefaultMethodHolderFactory();
+        for (Class<? extends MethodHolder> holderClass : Arrays.asList(StatusMethodHolder.class, HandleMethodHolder.class)) {
+            MethodInvoker invoker = holderFactory.getMethodHolder(OverloadFunction.class, holderClass).getInvoker("scale", 1);
+            // 与Method.invoke一致，基本类型参数接受拓宽转换，较窄的类型更具体
+            Assert.assertEquals("long:1", invoker.invoke(1));
+            Assert.assertEquals("long:2", invoker.invoke(2L));
+            Assert.assertEquals("long:3", invoker.invoke((short) 3));
+            Assert.assertEquals("double:1.5", invoker.invoke(1.5f));
+            Assert.assertEquals("double:2.5", invoker.invoke(2.5));
+            Assert.assertEquals("string:a", invoker.invoke("a"));
+            // 类型匹配的重载优先于拓宽转换
+            Assert.assertEquals("integer:1", holderFactory.getMethodHolder(OverloadFunction.class, holderClass)
+                    .getInvoker("describe", 1).invoke(1));
+        }
+    }
+
+    @Test
+    public void testHandle() {
+        DefaultMethodHolderFactory holderFactory = new DefaultMethodHolderFactory(HandleMethodHolder.class);
+        MethodHolder methodHolder = holderFactory.getMethodHolder(OverloadFunction.class);
+        Assert.assertTrue(methodHolder instanceof HandleMethodHolder);
+        MethodInvoker invoker = methodHolder.getInvoker("describe", 1);
+        Assert.assertEquals("string:a", invoker.invoke("a"));
+        Assert.assertEquals("integer:1", invoker.invoke(1));
+        Assert.assertEquals("number:1.5", invoker.invoke(new BigDecimal("1.5")));
+        Assert.assertEquals("pair:a,1", methodHolder.getInvoker("describe", 2).invoke("a", 1));
+        Assert.assertEquals("varargs:3", methodHolder.getInvoker("describe", 3).invoke("a", "b", "c"));
+        Assert.assertEquals("sum:6", methodHolder.getInvoker("sum", 3).invoke(1, 2, 3));
+    }
+
+    public static class OverloadFunction {
+
+        public static String sum(int... numbers) {
+            int sum = 0;
+            for (int number : numbers) {
+                sum += number;
+            }
+            return "sum:" + sum;
+        }
+
+
+        public static String describe(Object object) {
+            return "object:" + object;
+        }
+
+        public static String describe(Number number) {
+            return "number:" + number;
+        }
+
+        public static String describe(int number) {
+            return "integer:" + number;
+        }
+
+        public static String describe(String string) {
+            return "string:" + string;
+        }
+
+        public static String describe(String string, Integer number) {
+            return "pair:" + string + "," + number;
+        }
+
+        public static String scale(long number) {
+            return "long:" + number;
+        }
+
+        public static String scale(double number) {
+            return "double:" + number;
+        }
+
+        public static String scale(String string) {
+            return "string:" + string;
+        }
+
+        public static String describe(String... strings) {
+            return "varargs:" + strings.length;
+        }
+    }
 }
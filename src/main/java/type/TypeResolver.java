@@ -0,0 +1,249 @@
+package type;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 泛型解析器
+ * 沿父类与接口遍历类的泛型层级，得到各层泛型参数(TypeParameter)对应的真实类型，
+ * 子类的泛型参数作为父类/接口的真实类型时逐级替换；
+ * 每个类只遍历一次，结果由{@link ClassValue}在进程内缓存，之后的解析为一次Map查找
+ *
+ * @author cheney
+ * @date 2020-01-30
+ */
+public final class TypeResolver {
+
+    private final static ClassValue<Resolution> CACHE = new ClassValue<Resolution>() {
+        @Override
+        protected Resolution computeValue(Class<?> type) {
+            return new Resolution(type);
+        }
+    };
+
+    private TypeResolver() {
+    }
+
+    /**
+     * 解析父类或接口的某个泛型参数在clazz中的真实类型
+     *
+     * @param clazz       类
+     * @param declaration 声明泛型参数的父类或接口
+     * @param index       泛型参数下标
+     * @return 真实类型，无法确定时为TypeVariable，declaration不在clazz的泛型层级中时为null
+     */
+    public static Type resolve(Class<?> clazz, Class<?> declaration, int index) {
+        Type[] arguments = resolveArguments(clazz, declaration);
+        return arguments == null ? null : arguments[index];
+    }
+
+    /**
+     * 解析父类或接口的所有泛型参数在clazz中的真实类型
+     *
+     * @param clazz       类
+     * @param declaration 声明泛型参数的父类或接口
+     * @return 真实类型，declaration不在clazz的泛型层级中时为null；返回的数组为缓存，调用方不应修改
+     */
+    public static Type[] resolveArguments(Class<?> clazz, Class<?> declaration) {
+        return CACHE.get(clazz).arguments(declaration);
+    }
+
+    /**
+     * 将类型中的泛型参数替换为真实类型
+     *
+     * @param type     类型
+     * @param bindings k:泛型参数,v:真实类型
+     * @return 替换后的类型
+     */
+    static Type substitute(Type type, Map<TypeVariable<?>, Type> bindings) {
+        if (type instanceof TypeVariable) {
+            return bindings.getOrDefault(type, type);
+        }
+        if (type instanceof ParameterizedType) {
+            ParameterizedType parameterized = (ParameterizedType) type;
+            Type[] arguments = parameterized.getActualTypeArguments();
+            boolean changed = false;
+            for (int i = 0; i < arguments.length; i++) {
+                Type argument = substitute(arguments[i], bindings);
+                changed |= argument != arguments[i];
+                arguments[i] = argument;
+            }
+            Type owner = parameterized.getOwnerType() == null ? null : substitute(parameterized.getOwnerType(), bindings);
+            changed |= owner != parameterized.getOwnerType();
+            return changed ? new ParameterizedTypeImpl(parameterized.getRawType(), owner, arguments) : type;
+        }
+        if (type instanceof GenericArrayType) {
+            Type component = substitute(((GenericArrayType) type).getGenericComponentType(), bindings);
+            if (component instanceof Class) {
+                return Array.newInstance((Class<?>) component, 0).getClass();
+            }
+            if (component != ((GenericArrayType) type).getGenericComponentType()) {
+                return new GenericArrayTypeImpl(component);
+            }
+        }
+        return type;
+    }
+
+    /**
+     * 单个类的解析结果
+     */
+    private static class Resolution {
+
+        // 泛型层级中所有泛型参数对应的真实类型
+        private final Map<TypeVariable<?>, Type> bindings = new HashMap<>();
+
+        // k:父类或接口,v:其泛型参数的真实类型
+        private final ConcurrentHashMap<Class<?>, Type[]> arguments = new ConcurrentHashMap<>();
+
+        // 泛型层级中的父类与接口
+        private final Map<Class<?>, Boolean> hierarchy = new HashMap<>();
+
+        Resolution(Class<?> clazz) {
+            collect(clazz);
+        }
+
+        /**
+         * 由子类到父类遍历，子类的真实类型先放入bindings，父类的泛型参数可直接替换
+         */
+        private void collect(Type type) {
+            Class<?> raw;
+            if (type instanceof ParameterizedType) {
+                ParameterizedType parameterized = (ParameterizedType) type;
+                raw = (Class<?>) parameterized.getRawType();
+                TypeVariable<?>[] typeParameters = raw.getTypeParameters();
+                Type[] actualTypeArguments = parameterized.getActualTypeArguments();
+                for (int i = 0; i < typeParameters.length; i++) {
+                    bindings.putIfAbsent(typeParameters[i], substitute(actualTypeArguments[i], bindings));
+                }
+            } else if (type instanceof Class) {
+                raw = (Class<?>) type;
+            } else {
+                return;
+            }
+            if (hierarchy.put(raw, Boolean.TRUE) != null) {
+                return;
+            }
+            collect(raw.getGenericSuperclass());
+            for (Type genericInterface : raw.getGenericInterfaces()) {
+                collect(genericInterface);
+            }
+        }
+
+        Type[] arguments(Class<?> declaration) {
+            if (!hierarchy.containsKey(declaration)) {
+                return null;
+            }
+            return arguments.computeIfAbsent(declaration, key -> {
+                TypeVariable<?>[] typeParameters = declaration.getTypeParameters();
+                Type[] types = new Type[typeParameters.length];
+                for (int i = 0; i < typeParameters.length; i++) {
+                    types[i] = bindings.getOrDefault(typeParameters[i], typeParameters[i]);
+                }
+                return types;
+            });
+        }
+    }
+
+    /**
+     * 替换泛型参数后的ParameterizedType，equals/hashCode与JDK实现一致
+     */
+    private static class ParameterizedTypeImpl implements ParameterizedType {
+
+        private final Type rawType;
+
+        private final Type ownerType;
+
+        private final Type[] actualTypeArguments;
+
+        ParameterizedTypeImpl(Type rawType, Type ownerType, Type[] actualTypeArguments) {
+            this.rawType = rawType;
+            this.ownerType = ownerType;
+            this.actualTypeArguments = actualTypeArguments;
+        }
+
+        @Override
+        public Type[] getActualTypeArguments() {
+            return actualTypeArguments.clone();
+        }
+
+        @Override
+        public Type getRawType() {
+            return rawType;
+        }
+
+        @Override
+        public Type getOwnerType() {
+            return ownerType;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof ParameterizedType)) {
+                return false;
+            }
+            ParameterizedType that = (ParameterizedType) o;
+            return rawType.equals(that.getRawType()) && Objects.equals(ownerType, that.getOwnerType())
+                    && Arrays.equals(actualTypeArguments, that.getActualTypeArguments());
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(actualTypeArguments) ^ Objects.hashCode(ownerType) ^ rawType.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder(rawType.getTypeName());
+            builder.append('<');
+            for (int i = 0; i < actualTypeArguments.length; i++) {
+                if (i > 0) {
+                    builder.append(", ");
+                }
+                builder.append(actualTypeArguments[i].getTypeName());
+            }
+            return builder.append('>').toString();
+        }
+    }
+
+    /**
+     * 替换泛型参数后元素类型仍为泛型的GenericArrayType，如List&lt;E&gt;[]，equals/hashCode与JDK实现一致
+     */
+    private static class GenericArrayTypeImpl implements GenericArrayType {
+
+        private final Type genericComponentType;
+
+        GenericArrayTypeImpl(Type genericComponentType) {
+            this.genericComponentType = genericComponentType;
+        }
+
+        @Override
+        public Type getGenericComponentType() {
+            return genericComponentType;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof GenericArrayType
+                    && Objects.equals(genericComponentType, ((GenericArrayType) o).getGenericComponentType());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(genericComponentType);
+        }
+
+        @Override
+        public String toString() {
+            return genericComponentType.getTypeName() + "[]";
+        }
+    }
+
+}
@@ -1,9 +1,16 @@
 package type.test;
 
+import jsonUtils.JsonUtils;
+import org.junit.Assert;
 import org.junit.Test;
 import type.TypeReference;
+import type.TypeResolver;
 
 import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * @author cheney
@@ -16,6 +23,46 @@ public class Main {
         getType(new TestInterface2<Integer,String>(){});
     }
 
+    @Test
+    public void testResolver() {
+        Assert.assertEquals(Integer.class, new TestInterface2<Integer, String>() {
+        }.getActualType());
+        Assert.assertEquals(String.class, new TypeTest().getActualType());
+        // 子类的泛型参数在父类的泛型中被替换
+        Type listType = new ListReference<Integer>() {
+        }.getActualType();
+        Assert.assertEquals(new TypeReference<List<Integer>>() {
+        }.getActualType(), listType);
+        // 元素类型为泛型的数组
+        Assert.assertEquals(new TypeReference<List<Integer>[]>() {
+        }.getActualType(), new ListArrayReference<Integer>() {
+        }.getActualType());
+        Assert.assertEquals(Integer[].class, new ArrayReference<Integer>() {
+        }.getActualType());
+        // 接口的泛型参数
+        Assert.assertEquals(String.class, TypeResolver.resolve(Handler.class, Consumer.class, 0));
+        Assert.assertNull(TypeResolver.resolve(Handler.class, Map.class, 0));
+        List<Integer> values = JsonUtils.toJavaBean("[1,2]", new TypeReference<List<Integer>>() {
+        });
+        Assert.assertEquals(Arrays.asList(1, 2), values);
+    }
+
+    private static class ListReference<E> extends TypeReference<List<E>> {
+    }
+
+    private static class ListArrayReference<E> extends TypeReference<List<E>[]> {
+    }
+
+    private static class ArrayReference<E> extends TypeReference<E[]> {
+    }
+
+    private static class Handler implements Consumer<String> {
+
+        @Override
+        public void accept(String s) {
+        }
+    }
+
     private <T> T getType(TypeReference<T> typeReference) {
         Type actualType = typeReference.getActualType();
         System.out.println(actualType);